@@ -22,17 +22,30 @@ dependencies {
     implementation("org.springframework.boot:spring-boot-starter-jooq")
     implementation("org.springframework.boot:spring-boot-starter-oauth2-client")
     implementation("org.parttio:line-awesome:2.1.0")
+    implementation("org.postgresql:postgresql:42.7.5")
+    implementation("org.springframework.boot:spring-boot-starter-actuator")
 
     developmentOnly("org.springframework.boot:spring-boot-devtools:3.3.4")
 
-    runtimeOnly("org.postgresql:postgresql:42.7.5")
-    runtimeOnly("org.springframework.boot:spring-boot-starter-actuator")
+    runtimeOnly("io.micrometer:micrometer-registry-prometheus")
+
+    testImplementation("org.springframework.boot:spring-boot-starter-test")
+    testImplementation("org.testcontainers:junit-jupiter")
+    testImplementation("org.testcontainers:postgresql")
+    testImplementation("org.flywaydb:flyway-core")
+    testImplementation("org.flywaydb:flyway-database-postgresql")
+    testImplementation("org.openjdk.jol:jol-core:0.17")
+
+    testRuntimeOnly("org.junit.platform:junit-platform-launcher")
 }
 
 tasks {
     withType<JavaCompile> {
         options.encoding = "UTF-8"
     }
+    test {
+        useJUnitPlatform()
+    }
     processResources {
         duplicatesStrategy = DuplicatesStrategy.INCLUDE
         from("src/main/resources") {
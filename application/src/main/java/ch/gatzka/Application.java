@@ -2,6 +2,7 @@
 
 import ch.gatzka.repository.RoleRepository;
 import com.vaadin.flow.component.page.AppShellConfigurator;
+import com.vaadin.flow.component.page.Push;
 import com.vaadin.flow.theme.Theme;
 import com.vaadin.flow.theme.lumo.Lumo;
 import org.springframework.boot.ApplicationArguments;
@@ -13,6 +14,7 @@
 @SpringBootApplication
 @Theme(value = "application", variant = Lumo.DARK)
 @EnableScheduling
+@Push
 public class Application implements AppShellConfigurator, ApplicationRunner {
 
     private final RoleRepository roleRepository;
@@ -2,13 +2,24 @@
 
 import ch.gatzka.enums.GameMode;
 import ch.gatzka.repository.ItemRepository;
-import ch.gatzka.repository.ItemTagRepository;
+import ch.gatzka.repository.ItemRepository.FallbackPrice;
+import ch.gatzka.repository.KeyReportSummaryRepository;
 import ch.gatzka.repository.KeyRepository;
-import ch.gatzka.repository.TagRepository;
+import ch.gatzka.repository.view.ItemGridViewRepository;
+import ch.gatzka.repository.view.KeyGridViewRepository;
 import ch.gatzka.service.GraphQlService;
+import ch.gatzka.service.ItemCatalog;
+import ch.gatzka.service.TagFacetIndex;
+import ch.gatzka.service.ValuationService;
+import ch.gatzka.sync.AdaptiveSyncScheduler;
+import ch.gatzka.sync.ItemSyncPipeline;
+import ch.gatzka.sync.ItemSyncResult;
+import ch.gatzka.sync.MarketDataClient;
+import ch.gatzka.sync.MarketDataClient.CachedPayload;
+import ch.gatzka.sync.SyncCoordinator;
+import ch.gatzka.sync.SyncMetrics;
 import ch.gatzka.tables.records.*;
-import com.fasterxml.jackson.databind.ObjectMapper;
-import kotlin.Pair;
+import jakarta.annotation.PreDestroy;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.jetbrains.annotations.NotNull;
@@ -19,15 +30,17 @@
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.context.event.ApplicationReadyEvent;
 import org.springframework.context.ApplicationListener;
-import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Component;
-import org.springframework.web.client.RestTemplate;
 
-import java.time.Instant;
+import java.time.Duration;
 import java.time.LocalDateTime;
-import java.time.ZoneId;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Supplier;
 
 import static ch.gatzka.Tables.*;
 
@@ -40,31 +53,131 @@ public class DataInitializer implements ApplicationListener<ApplicationReadyEven
 
     private static final String PVP_ALL_ITEMS = "https://api.tarkov-market.app/api/v1/items/all?x-api-key={API_KEY}";
 
+    private static final String PVE_SOURCE = "pve-items";
+
+    private static final String PVP_SOURCE = "pvp-items";
+
     @Value("${api.key}")
     private String apiKey;
 
-    private final RestTemplate restTemplate;
-
-    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final MarketDataClient marketDataClient;
 
     private final ItemRepository itemRepository;
 
-    private final TagRepository tagRepository;
+    private final ItemSyncPipeline itemSyncPipeline;
+
+    private final SyncCoordinator syncCoordinator;
+
+    private final AdaptiveSyncScheduler adaptiveSyncScheduler;
+
+    private final SyncMetrics syncMetrics;
+
+    private final TagFacetIndex tagFacetIndex;
 
-    private final ItemTagRepository itemTagRepository;
+    private final ItemCatalog itemCatalog;
+
+    private final ValuationService valuationService;
 
     private final GraphQlService service;
     private final KeyRepository keyRepository;
+    private final ItemGridViewRepository itemGridViewRepository;
+    private final KeyGridViewRepository keyGridViewRepository;
+    private final KeyReportSummaryRepository keyReportSummaryRepository;
     private final DefaultDSLContext dslContext;
 
+    @Value("${sync.timeout.items:2m}")
+    private Duration itemFetchTimeout;
+
+    @Value("${sync.timeout.keys:2m}")
+    private Duration keyFetchTimeout;
+
+    @Value("${sync.timeout.prices:2m}")
+    private Duration priceFetchTimeout;
+
+    private final ExecutorService fetchExecutor = Executors.newVirtualThreadPerTaskExecutor();
+
+    private final AtomicBoolean gridViewsStale = new AtomicBoolean();
+
+    private final AtomicBoolean keySummariesStale = new AtomicBoolean();
+
     @Override
     public void onApplicationEvent(@NotNull ApplicationReadyEvent event) {
         try {
-            updateData();
-            fetchKeys();
+            int summaryCount = keyReportSummaryRepository.backfill();
+            log.info("Key report summaries backfilled. {} summaries written", summaryCount);
+        } catch (Exception e) {
+            log.error("Error backfilling key report summaries", e);
+        }
+
+        try {
+            syncCoordinator.run("startup", () -> synchronize(true)).join();
         } catch (Exception e) {
             log.error("Error updating data", e);
         }
+        publishSnapshots();
+        adaptiveSyncScheduler.start(this::updateItemPrices);
+    }
+
+    @PreDestroy
+    public void cleanUp() {
+        fetchExecutor.shutdownNow();
+    }
+
+    /**
+     * Runs a full sync cycle in the background, joining the running cycle if there is one.
+     *
+     * @return future completing with {@code true} if the cycle ran on this node
+     */
+    public CompletableFuture<Boolean> syncNow() {
+        return CompletableFuture.supplyAsync(() -> {
+            boolean ran = syncCoordinator.run("admin", () -> synchronize(true)).join();
+            publishSnapshots();
+            return ran;
+        }, fetchExecutor);
+    }
+
+    /**
+     * Issues all upstream calls at once and hands every result to its write stage as soon as the data it depends on
+     * has arrived. Items are written once both item payloads are available, keys and fallback prices once the items
+     * are written.
+     *
+     * @param force whether to download the item payloads even if the cached ones are still current
+     */
+    private void synchronize(boolean force) {
+        CompletableFuture<CachedPayload> pveFuture = fetch("PvE items", () -> syncMetrics.time("pve-fetch", () -> marketDataClient.fetch(PVE_SOURCE, PVE_ALL_ITEMS, force, apiKey)), itemFetchTimeout);
+        CompletableFuture<CachedPayload> pvpFuture = fetch("PvP items", () -> syncMetrics.time("pvp-fetch", () -> marketDataClient.fetch(PVP_SOURCE, PVP_ALL_ITEMS, force, apiKey)), itemFetchTimeout);
+        CompletableFuture<List<FetchKeysQuery.Item>> keysFuture = syncMetrics.timeAsync("keys-fetch", this::fetchKeys);
+        CompletableFuture<List<FallbackPrice>> pvePricesFuture = syncMetrics.timeAsync("pve-prices-fetch", () -> fetchPrices(GameMode.PvE));
+        CompletableFuture<List<FallbackPrice>> pvpPricesFuture = syncMetrics.timeAsync("pvp-prices-fetch", () -> fetchPrices(GameMode.PvP));
+
+        try {
+            ItemSyncResult result = pveFuture.thenCombine(pvpFuture, this::updateData).thenCombineAsync(keysFuture, (itemResult, keys) -> {
+                updateKeys(keys);
+                return itemResult;
+            }, fetchExecutor).thenCombineAsync(pvePricesFuture.thenCombine(pvpPricesFuture, Map::entry), (itemResult, prices) -> {
+                updatePrices(GameMode.PvE, prices.getKey());
+                updatePrices(GameMode.PvP, prices.getValue());
+                return itemResult;
+            }, fetchExecutor).join();
+            adaptiveSyncScheduler.record(result);
+            syncMetrics.succeeded(result);
+        } catch (RuntimeException e) {
+            syncMetrics.failed();
+            marketDataClient.invalidate(PVE_SOURCE);
+            marketDataClient.invalidate(PVP_SOURCE);
+            throw e;
+        } finally {
+            refreshStaleViews();
+        }
+    }
+
+    private <T> CompletableFuture<T> fetch(String source, Supplier<T> supplier, Duration timeout) {
+        return CompletableFuture.supplyAsync(() -> {
+            long startTime = System.currentTimeMillis();
+            T result = supplier.get();
+            log.info("Fetched {} after {} ms", source, System.currentTimeMillis() - startTime);
+            return result;
+        }, fetchExecutor).orTimeout(timeout.toMillis(), TimeUnit.MILLISECONDS);
     }
 
     private void generateRandomData() {
@@ -117,216 +230,144 @@ private void generateRandomData() {
 
     }
 
-    private void updateData() throws Exception {
-        String pveJsonResponse = restTemplate.getForObject(PVE_ALL_ITEMS, String.class, apiKey);
-        String pvpJsonResponse = restTemplate.getForObject(PVP_ALL_ITEMS, String.class, apiKey);
-
-        Response[] pveObjects = objectMapper.readValue(pveJsonResponse, Response[].class);
-        Response[] pvpObjects = objectMapper.readValue(pvpJsonResponse, Response[].class);
+    private ItemSyncResult updateData(CachedPayload pvePayload, CachedPayload pvpPayload) {
+        long bytesTransferred = pvePayload.bytesTransferred() + pvpPayload.bytesTransferred();
+        int cacheHits = (pvePayload.modified() ? 0 : 1) + (pvpPayload.modified() ? 0 : 1);
+        log.info("Item payloads fetched. {} bytes transferred, {} cache hits", bytesTransferred, cacheHits);
+        syncMetrics.payload(PVE_SOURCE, pvePayload);
+        syncMetrics.payload(PVP_SOURCE, pvpPayload);
 
-        Map<String, Pair<Response, Response>> data = new HashMap<>();
-
-        for (Response pveObject : pveObjects) {
-            if (data.containsKey(pveObject.uid)) {
-                Pair<Response, Response> pair = data.get(pveObject.uid);
-                pair = new Pair<>(pveObject, pair.getSecond());
-                data.put(pveObject.uid, pair);
-            } else {
-                data.put(pveObject.uid, new Pair<>(pveObject, null));
-            }
+        if (!pvePayload.modified() && !pvpPayload.modified()) {
+            log.info("Item payloads not modified, skipping data update");
+            return ItemSyncResult.NOT_MODIFIED;
         }
 
-        for (Response pvpObject : pvpObjects) {
-            if (data.containsKey(pvpObject.uid)) {
-                Pair<Response, Response> pair = data.get(pvpObject.uid);
-                pair = new Pair<>(pair.getFirst(), pvpObject);
-                data.put(pvpObject.uid, pair);
-            } else {
-                data.put(pvpObject.uid, new Pair<>(null, pvpObject));
-            }
+        ItemSyncResult result;
+        try {
+            result = itemSyncPipeline.run(pvePayload, pvpPayload);
+        } catch (RuntimeException e) {
+            // part of the items may already be committed
+            markItemsChanged();
+            throw e;
         }
-
-
-        int totalItems = data.size();
-        int processedItems = 0;
-        int lastLoggedPercentage = -1;
-
-        int insertedCount = 0;
-        int updatedCount = 0;
-        for (Pair<Response, Response> object : data.values()) {
-            Pair<Integer, Integer> counts = updateItem(object.getFirst(), object.getSecond());
-            insertedCount += counts.getFirst();
-            updatedCount += counts.getSecond();
-            processedItems++;
-            int currentPercentage = (processedItems * 100) / totalItems;
-            if (currentPercentage != lastLoggedPercentage) {
-                lastLoggedPercentage = currentPercentage;
-                log.info("Data update progress: {}%", currentPercentage);
-            }
+        if (result.changedCount() > 0) {
+            markItemsChanged();
         }
-        log.info("Data update finished. {} items inserted, {} items updated", insertedCount, updatedCount);
+        log.info("Data update finished. {} items inserted, {} items updated, {} items unchanged", result.insertedCount(), result.updatedCount(), result.unchangedCount());
+        return result;
     }
 
-    private Pair<Integer, Integer> updateItem(Response pveData, Response pvpData) {
-        int insertedCount = 0;
-        int updatedCount = 0;
-
-        Instant instant = pveData.updated.isEmpty() ? Instant.now() : Instant.parse(pveData.updated);
-        LocalDateTime updated = instant.atZone(ZoneId.systemDefault()).toLocalDateTime();
-        Optional<ItemRecord> optionalItem = itemRepository.findByTarkovId(pveData.bsgId);
-
-        if (optionalItem.isEmpty()) {
-            Integer itemId = itemRepository.insertWithSequence(item -> item
-                    .setTarkovMarketId(pveData.uid)
-                    .setName(pveData.name)
-                    .setBannedOnFlea(pveData.bannedOnFlea)
-                    .setHaveMarketData(pveData.haveMarketData)
-                    .setShortName(pveData.shortName)
-                    .setPvePrice(pveData.price)
-                    .setPvpPrice(pvpData.price)
-                    .setPveBasePrice(pveData.basePrice)
-                    .setPvpBasePrice(pvpData.basePrice)
-                    .setPveAvg24hPrice(pveData.avg24hPrice)
-                    .setPvpAvg24hPrice(pvpData.avg24hPrice)
-                    .setPveAvg7daysPrice(pveData.avg7daysPrice)
-                    .setPvpAvg7daysPrice(pvpData.avg7daysPrice)
-                    .setPveTraderName(pveData.traderName)
-                    .setPvpTraderName(pvpData.traderName)
-                    .setPveTraderPrice(pveData.traderPrice)
-                    .setPvpTraderPrice(pvpData.traderPrice)
-                    .setPveTraderPriceCurrency(pveData.traderPriceCur)
-                    .setPvpTraderPriceCurrency(pvpData.traderPriceCur)
-                    .setPveTraderPriceRouble(pveData.traderPriceRub)
-                    .setPvpTraderPriceRouble(pvpData.traderPriceRub)
-                    .setPveDiff24h(pveData.diff24h)
-                    .setPvpDiff24h(pvpData.diff24h)
-                    .setPveDiff7days(pveData.diff7days)
-                    .setPvpDiff7days(pvpData.diff7days)
-                    .setUpdated(updated)
-                    .setSlots(pveData.slots)
-                    .setIcon(pveData.icon)
-                    .setLink(pveData.link)
-                    .setWikiLink(pveData.wikiLink)
-                    .setImageLink(pveData.img)
-                    .setImageBigLink(pveData.imgBig)
-                    .setTarkovId(pveData.bsgId)
-                    .setIsFunctional(pveData.isFunctional)
-                    .setReference(pveData.reference)
-            );
+    private CompletableFuture<List<FetchKeysQuery.Item>> fetchKeys() {
+        List<FetchKeysQuery.Item> keys = new ArrayList<>();
+        return service.runPagedQuery(FetchKeysQuery::new, data -> data.items.stream().filter(Objects::nonNull).toList(), keys::addAll)
+                .orTimeout(keyFetchTimeout.toMillis(), TimeUnit.MILLISECONDS)
+                .thenApply(_ -> keys);
+    }
 
-            for (String name : pveData.tags) {
-                TagRecord tag = getTag(name);
-                itemTagRepository.insert(itemTag -> itemTag.setItemId(itemId).setTagId(tag.getId()));
-            }
-            insertedCount++;
-        } else {
-            ItemRecord item = optionalItem.get();
-
-            if (!item.getUpdated().equals(updated)) {
-                item.setUpdated(updated);
-                item.setName(pveData.name);
-                item.setBannedOnFlea(pveData.bannedOnFlea);
-                item.setHaveMarketData(pveData.haveMarketData);
-                item.setShortName(pveData.shortName);
-                item.setPvePrice(pveData.price);
-                item.setPvpPrice(pvpData.price);
-                item.setPveBasePrice(pveData.basePrice);
-                item.setPvpBasePrice(pvpData.basePrice);
-                item.setPveAvg24hPrice(pveData.avg24hPrice);
-                item.setPvpAvg24hPrice(pvpData.avg24hPrice);
-                item.setPveAvg7daysPrice(pveData.avg7daysPrice);
-                item.setPvpAvg7daysPrice(pvpData.avg7daysPrice);
-                item.setPveTraderName(pveData.traderName);
-                item.setPvpTraderName(pvpData.traderName);
-                item.setPveTraderPrice(pveData.traderPrice);
-                item.setPvpTraderPrice(pvpData.traderPrice);
-                item.setPveTraderPriceCurrency(pveData.traderPriceCur);
-                item.setPvpTraderPriceCurrency(pvpData.traderPriceCur);
-                item.setPveTraderPriceRouble(pveData.traderPriceRub);
-                item.setPvpTraderPriceRouble(pvpData.traderPriceRub);
-                item.setPveDiff24h(pveData.diff24h);
-                item.setPvpDiff24h(pvpData.diff24h);
-                item.setPveDiff7days(pveData.diff7days);
-                item.setPvpDiff7days(pvpData.diff7days);
-                item.setUpdated(updated);
-                item.setSlots(pveData.slots);
-                item.setIcon(pveData.icon);
-                item.setLink(pveData.link);
-                item.setWikiLink(pveData.wikiLink);
-                item.setImageLink(pveData.img);
-                item.setImageBigLink(pveData.imgBig);
-                item.setTarkovId(pveData.bsgId);
-                item.setIsFunctional(pveData.isFunctional);
-                item.setReference(pveData.reference);
-                item.update();
-
-                itemTagRepository.deleteByItemId(item.getId());
-
-                for (String name : pveData.tags) {
-                    TagRecord tag = getTag(name);
-                    itemTagRepository.insert(itemTag -> itemTag.setItemId(item.getId()).setTagId(tag.getId()));
-                }
-
-                updatedCount++;
+    private void updateKeys(List<FetchKeysQuery.Item> data) {
+        Map<String, Integer> itemIds = itemRepository.readIdsByTarkovIds(data.stream().map(itemData -> itemData.id).toList());
+
+        Map<Integer, Integer> usesByItemId = new HashMap<>();
+        data.forEach(itemData -> {
+            Integer itemId = itemIds.get(itemData.id);
+            if (itemId != null) {
+                usesByItemId.put(itemId, itemData.properties.onItemPropertiesKey.uses);
             }
-        }
-        return new Pair<>(insertedCount, updatedCount);
-    }
+        });
 
-    private TagRecord getTag(String name) {
-        Optional<TagRecord> optionalTag = tagRepository.findByName(name);
-        if (optionalTag.isEmpty()) {
-            tagRepository.insertWithSequence(tagRecord -> tagRecord.setName(name));
-            optionalTag = tagRepository.findByName(name);
+        int upsertedCount = keyRepository.upsertByItemId(usesByItemId);
+        if (upsertedCount > 0) {
+            gridViewsStale.set(true);
         }
-        return optionalTag.orElseThrow(() -> new RuntimeException("Tag with name " + name + " not found"));
+        log.info("Key update finished. {} keys inserted or updated", upsertedCount);
     }
 
-    private record Response(String uid, String name, Boolean bannedOnFlea, Boolean haveMarketData, String shortName, Integer price, Integer basePrice, Integer avg24hPrice, Integer avg7daysPrice, String traderName, Integer traderPrice,
-                            String traderPriceCur, Integer traderPriceRub, String updated, Integer slots, String icon, String link, String wikiLink, String img, String imgBig, String bsgId, String[] tags, Double diff24h, Double diff7days,
-                            Boolean isFunctional, String reference) {
+    /**
+     * Fetches the tarkov.dev flea prices of the given game mode, which fill in for items that tarkov-market lists
+     * without market data. The feed is optional: if it fails, the cycle continues and these prices stay as they are.
+     */
+    private CompletableFuture<List<FallbackPrice>> fetchPrices(GameMode mode) {
+        ch.gatzka.type.GameMode gameMode = mode == GameMode.PvE ? ch.gatzka.type.GameMode.pve : ch.gatzka.type.GameMode.regular;
+        List<FallbackPrice> prices = new ArrayList<>();
+        return service.runPagedQuery((limit, offset) -> new FetchItemPricesQuery(gameMode, limit, offset), data -> data.items.stream().filter(Objects::nonNull).toList(), page -> page.forEach(item -> {
+                    if (item.lastLowPrice != null && item.avg24hPrice != null) {
+                        prices.add(new FallbackPrice(item.id, item.lastLowPrice, item.avg24hPrice));
+                    }
+                }))
+                .orTimeout(priceFetchTimeout.toMillis(), TimeUnit.MILLISECONDS)
+                .thenApply(_ -> prices)
+                .exceptionally(e -> {
+                    log.warn("Fetching {} fallback prices failed, keeping the current ones", mode, e);
+                    return List.of();
+                });
+    }
 
+    private void updatePrices(GameMode mode, List<FallbackPrice> prices) {
+        int updatedCount = itemRepository.updateMissingPrices(mode, prices);
+        if (updatedCount > 0) {
+            gridViewsStale.set(true);
+        }
+        log.info("Fallback price update finished. {} {} items updated", updatedCount, mode);
     }
 
-    private void fetchKeys() {
-        List<FetchKeysQuery.Item> data = service.runQuery(new FetchKeysQuery()).items.stream().filter(Objects::nonNull).toList();
+    private void markItemsChanged() {
+        gridViewsStale.set(true);
+        keySummariesStale.set(true);
+    }
 
-        data.forEach(itemData -> {
-            Optional<ItemRecord> optionalItem = itemRepository.findByTarkovId(itemData.id);
-
-            if (optionalItem.isPresent()) {
-                ItemRecord item = optionalItem.get();
-
-                Optional<KeyRecord> optionalKey = keyRepository.findByItemId(item.getId());
-
-                if (optionalKey.isPresent()) {
-                    // Update
-                    KeyRecord key = optionalKey.get();
-                    key.setUses(itemData.properties.onItemPropertiesKey.uses);
-                    key.update();
-                } else {
-                    // Insert
-                    keyRepository.insertWithSequence(entry -> entry.setItemId(item.getId()).setUses(itemData.properties.onItemPropertiesKey.uses));
-                }
+    /**
+     * Refreshes the grid views and key report summaries if a write committed since their last successful refresh, also
+     * if a later stage of the cycle failed. A failed refresh is retried by the next cycle.
+     */
+    private void refreshStaleViews() {
+        if (gridViewsStale.getAndSet(false)) {
+            try {
+                refreshGridViews();
+            } catch (RuntimeException e) {
+                gridViewsStale.set(true);
+                log.error("Error refreshing grid views", e);
             }
-        });
+        }
+        if (keySummariesStale.getAndSet(false)) {
+            try {
+                log.info("Key report summaries refreshed. {} summaries updated", keyReportSummaryRepository.refreshKeyItems());
+            } catch (RuntimeException e) {
+                keySummariesStale.set(true);
+                log.error("Error refreshing key report summaries", e);
+            }
+        }
     }
 
+    /**
+     * Rebuilds the in-memory snapshots from the database. Runs after every cycle, also on nodes that skipped it.
+     */
+    private void publishSnapshots() {
+        itemCatalog.rebuild();
+        tagFacetIndex.rebuild();
+        valuationService.rebuild();
+    }
 
+    private void refreshGridViews() {
+        syncMetrics.time("view-refresh", () -> {
+            itemGridViewRepository.refresh();
+            keyGridViewRepository.refresh();
+            return null;
+        });
+        log.info("Grid views refreshed");
+    }
 
-    @Scheduled(fixedDelay = 10, timeUnit = TimeUnit.MINUTES, initialDelay = 10)
     private void updateItemPrices() {
         long startTime = System.currentTimeMillis();
         log.info("Starting update item prices");
         try {
-            updateData();
-            fetchKeys();
+            syncCoordinator.run("schedule", () -> synchronize(false)).join();
         } catch (Exception e) {
             log.error("Error updating data", e);
         }
+        publishSnapshots();
         log.info("Finished updating item prices after {} ms", System.currentTimeMillis() - startTime);
 
-        LocalDateTime nextUpdate = LocalDateTime.now().plusMinutes(10);
+        LocalDateTime nextUpdate = LocalDateTime.now().plus(adaptiveSyncScheduler.getInterval());
         log.info("Next update scheduled at {}", nextUpdate);
     }
 }
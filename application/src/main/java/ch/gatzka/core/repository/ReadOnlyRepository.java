@@ -1,10 +1,12 @@
 package ch.gatzka.core.repository;
 
+import lombok.Getter;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.jooq.*;
 import org.jooq.impl.DSL;
 
+import java.util.Collection;
 import java.util.Optional;
 
 
@@ -14,6 +16,7 @@
 
     protected final DSLContext dslContext;
 
+    @Getter
     protected final Table<R> table;
 
     public Result<R> readAll() {
@@ -24,6 +27,26 @@ public Result<R> read(Condition... condition) {
         return dslContext.fetch(table, condition);
     }
 
+    /**
+     * Reads a page of records using {@code OFFSET} pagination.
+     */
+    public Result<R> read(Collection<? extends SortField<?>> orderBy, int offset, int limit, Condition... condition) {
+        return dslContext.selectFrom(table).where(condition).orderBy(orderBy).offset(offset).limit(limit).fetch();
+    }
+
+    /**
+     * Reads a page of records using keyset pagination, starting after the record with the given sort values.
+     *
+     * @param seekValues values of the sort fields of the last record of the previous page
+     */
+    public Result<R> readAfter(Collection<? extends SortField<?>> orderBy, Object[] seekValues, int limit, Condition... condition) {
+        return dslContext.selectFrom(table).where(condition).orderBy(orderBy).seek(seekValues).limit(limit).fetch();
+    }
+
+    public int count(Condition... condition) {
+        return dslContext.fetchCount(table, condition);
+    }
+
     public Optional<R> find(Condition... condition) {
         return dslContext.fetchOptional(table, condition);
     }
@@ -0,0 +1,112 @@
+package ch.gatzka.core.repository;
+
+import com.vaadin.flow.data.provider.AbstractBackEndDataProvider;
+import com.vaadin.flow.data.provider.Query;
+import com.vaadin.flow.data.provider.QuerySortOrder;
+import com.vaadin.flow.data.provider.SortDirection;
+import org.jooq.*;
+
+import java.util.*;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+/**
+ * Lazy data provider reading pages of a repository. Sort orders of the grid are translated into {@code ORDER BY}
+ * clauses on the fields named like the sorted properties. When the grid scrolls on to the page directly following the
+ * previous one, the page is read by keyset pagination instead of {@code OFFSET}.
+ *
+ * @param <R> record type of the repository
+ */
+public class RepositoryDataProvider<R extends TableRecord<R>> extends AbstractBackEndDataProvider<R, Void> {
+
+    private final ReadOnlyRepository<R> repository;
+
+    private final Supplier<Condition[]> conditions;
+
+    private final List<SortField<?>> defaultOrder;
+
+    private volatile Page lastPage;
+
+    /**
+     * @param conditions   supplies the current filter of the grid
+     * @param defaultOrder order applied after the sort orders of the grid, must end with a unique field
+     */
+    public RepositoryDataProvider(ReadOnlyRepository<R> repository, Supplier<Condition[]> conditions, SortField<?>... defaultOrder) {
+        this.repository = repository;
+        this.conditions = conditions;
+        this.defaultOrder = List.of(defaultOrder);
+    }
+
+    @Override
+    protected Stream<R> fetchFromBackEnd(Query<R, Void> query) {
+        int offset = query.getOffset();
+        int limit = query.getLimit();
+        Condition[] condition = conditions.get();
+        List<SortField<?>> orderBy = orderBy(query.getSortOrders());
+
+        Page page = lastPage;
+        Result<R> records;
+        if (offset > 0 && page != null && page.end() == offset && page.orderBy().equals(orderBy) && Arrays.equals(page.conditions(), condition) && page.seekValues() != null) {
+            records = repository.readAfter(orderBy, page.seekValues(), limit, condition);
+        } else {
+            records = repository.read(orderBy, offset, limit, condition);
+        }
+
+        if (!records.isEmpty()) {
+            lastPage = new Page(condition, orderBy, offset + records.size(), seekValues(orderBy, records.getLast()));
+        }
+        return records.stream();
+    }
+
+    @Override
+    protected int sizeInBackEnd(Query<R, Void> query) {
+        return repository.count(conditions.get());
+    }
+
+    @Override
+    public void refreshAll() {
+        lastPage = null;
+        super.refreshAll();
+    }
+
+    private List<SortField<?>> orderBy(List<QuerySortOrder> sortOrders) {
+        Table<R> table = repository.getTable();
+        List<SortField<?>> orderBy = new ArrayList<>();
+        Set<String> sortedFields = new HashSet<>();
+        for (QuerySortOrder sortOrder : sortOrders) {
+            Field<?> field = table.field(toColumnName(sortOrder.getSorted()));
+            if (field != null && sortedFields.add(field.getName())) {
+                orderBy.add(sortOrder.getDirection() == SortDirection.DESCENDING ? field.desc() : field.asc());
+            }
+        }
+        for (SortField<?> sortField : defaultOrder) {
+            if (sortedFields.add(sortField.getName())) {
+                orderBy.add(sortField);
+            }
+        }
+        return orderBy;
+    }
+
+    /**
+     * @return the sort values of the given record, {@code null} if one of them is {@code null} and can not be seeked
+     */
+    private Object[] seekValues(List<SortField<?>> orderBy, R record) {
+        Object[] values = new Object[orderBy.size()];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = record.get(orderBy.get(i).getName());
+            if (values[i] == null) {
+                return null;
+            }
+        }
+        return values;
+    }
+
+    private static String toColumnName(String property) {
+        return property.replaceAll("([a-z0-9])([A-Z])", "$1_$2").toLowerCase(Locale.ROOT);
+    }
+
+    private record Page(Condition[] conditions, List<SortField<?>> orderBy, int end, Object[] seekValues) {
+
+    }
+
+}
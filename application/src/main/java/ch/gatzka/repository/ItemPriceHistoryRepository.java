@@ -0,0 +1,114 @@
+package ch.gatzka.repository;
+
+import ch.gatzka.core.repository.ReadOnlyRepository;
+import ch.gatzka.enums.GameMode;
+import ch.gatzka.tables.records.ItemPriceHistoryRecord;
+import org.jooq.DSLContext;
+import org.jooq.Field;
+import org.jooq.impl.DSL;
+import org.jooq.impl.SQLDataType;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.time.format.DateTimeFormatter;
+import java.util.Collection;
+import java.util.List;
+
+import static ch.gatzka.Tables.ITEM_PRICE_HISTORY;
+
+@Service
+public class ItemPriceHistoryRepository extends ReadOnlyRepository<ItemPriceHistoryRecord> {
+
+    private static final DateTimeFormatter PARTITION_SUFFIX = DateTimeFormatter.ofPattern("yyyy_MM");
+
+    private static final String RECORD_CHANGES = """
+            INSERT INTO item_price_history (item_id, mode, recorded_at, price, avg24h_price, avg7days_price, trader_price_rouble)
+            SELECT candidate.*
+            FROM (SELECT id, 'PvE'::GAME_MODE, {1}::TIMESTAMP, pve_price, pve_avg24h_price, pve_avg7days_price, pve_trader_price_rouble
+                  FROM item
+                  WHERE id = ANY ({0}::INTEGER[])
+                  UNION ALL
+                  SELECT id, 'PvP'::GAME_MODE, {1}::TIMESTAMP, pvp_price, pvp_avg24h_price, pvp_avg7days_price, pvp_trader_price_rouble
+                  FROM item
+                  WHERE id = ANY ({0}::INTEGER[])) AS candidate (item_id, mode, recorded_at, price, avg24h_price, avg7days_price, trader_price_rouble)
+                     LEFT JOIN LATERAL (SELECT price, avg24h_price, avg7days_price, trader_price_rouble
+                                        FROM item_price_history
+                                        WHERE item_price_history.item_id = candidate.item_id
+                                          AND item_price_history.mode = candidate.mode
+                                        ORDER BY item_price_history.recorded_at DESC
+                                        LIMIT 1) AS latest
+                               ON TRUE
+            WHERE (candidate.price, candidate.avg24h_price, candidate.avg7days_price, candidate.trader_price_rouble)
+                      IS DISTINCT FROM (latest.price, latest.avg24h_price, latest.avg7days_price, latest.trader_price_rouble)
+            """;
+
+    public ItemPriceHistoryRepository(DSLContext dslContext) {
+        super(dslContext, ITEM_PRICE_HISTORY);
+    }
+
+    /**
+     * Appends the current prices of the given items for both game modes, skipping every item and mode whose prices
+     * equal its latest recorded entry.
+     *
+     * @return the number of entries appended
+     */
+    public int recordChanges(Collection<Integer> itemIds, LocalDateTime recordedAt) {
+        if (itemIds.isEmpty()) {
+            return 0;
+        }
+        return dslContext.execute(RECORD_CHANGES, DSL.val(itemIds.toArray(Integer[]::new)), DSL.val(recordedAt));
+    }
+
+    /**
+     * Reads the price series of an item, averaged over buckets of the given size, with a single range scan.
+     */
+    public List<PricePoint> readSeries(int itemId, GameMode mode, LocalDateTime from, LocalDateTime to, Duration bucketSize) {
+        Field<LocalDateTime> bucket = DSL.field("date_bin(make_interval(secs => {0}), {1}, {2})", SQLDataType.LOCALDATETIME, DSL.val((double) bucketSize.toSeconds()), ITEM_PRICE_HISTORY.RECORDED_AT, DSL.val(from));
+
+        return dslContext.select(bucket, DSL.avg(ITEM_PRICE_HISTORY.PRICE), DSL.avg(ITEM_PRICE_HISTORY.AVG24H_PRICE))
+                .from(ITEM_PRICE_HISTORY)
+                .where(ITEM_PRICE_HISTORY.ITEM_ID.eq(itemId))
+                .and(ITEM_PRICE_HISTORY.MODE.eq(mode))
+                .and(ITEM_PRICE_HISTORY.RECORDED_AT.ge(from))
+                .and(ITEM_PRICE_HISTORY.RECORDED_AT.lt(to))
+                .groupBy(bucket)
+                .orderBy(bucket)
+                .fetch(record -> new PricePoint(record.value1(), record.value2().intValue(), record.value3().intValue()));
+    }
+
+    public void createPartition(YearMonth month) {
+        dslContext.execute("CREATE TABLE IF NOT EXISTS {0} PARTITION OF {1} FOR VALUES FROM ({2}) TO ({3})",
+                DSL.name(partitionName(month)), ITEM_PRICE_HISTORY, DSL.inline(month.atDay(1).atStartOfDay()), DSL.inline(month.plusMonths(1).atDay(1).atStartOfDay()));
+    }
+
+    /**
+     * Detaches and drops all monthly partitions before the given month.
+     *
+     * @return the number of partitions dropped
+     */
+    public int dropPartitionsBefore(YearMonth month) {
+        String oldest = partitionName(month);
+        List<String> partitions = dslContext.fetchValues(DSL.field("child.relname", String.class), "SELECT child.relname FROM pg_inherits JOIN pg_class parent ON pg_inherits.inhparent = parent.oid JOIN pg_class child ON pg_inherits.inhrelid = child.oid WHERE parent.relname = {0}", DSL.inline(ITEM_PRICE_HISTORY.getName()));
+
+        int dropped = 0;
+        for (String partition : partitions) {
+            if (partition.compareTo(oldest) < 0) {
+                dslContext.execute("ALTER TABLE {0} DETACH PARTITION {1}", ITEM_PRICE_HISTORY, DSL.name(partition));
+                dslContext.execute("DROP TABLE {0}", DSL.name(partition));
+                dropped++;
+            }
+        }
+        return dropped;
+    }
+
+    private static String partitionName(YearMonth month) {
+        return ITEM_PRICE_HISTORY.getName() + "_" + month.format(PARTITION_SUFFIX);
+    }
+
+    public record PricePoint(LocalDateTime bucket, int price, int avg24hPrice) {
+
+    }
+
+}
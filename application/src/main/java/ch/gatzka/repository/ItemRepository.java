@@ -1,18 +1,32 @@
 package ch.gatzka.repository;
 
 import ch.gatzka.core.repository.CrudRepository;
+import ch.gatzka.enums.GameMode;
 import ch.gatzka.tables.records.ItemRecord;
-import org.jooq.DSLContext;
+import org.jooq.*;
+import org.jooq.impl.DSL;
+import org.jooq.impl.SQLDataType;
+import org.postgresql.PGConnection;
+import org.postgresql.copy.CopyIn;
+import org.postgresql.copy.CopyManager;
 import org.springframework.stereotype.Service;
 
-import java.util.Optional;
+import java.nio.charset.StandardCharsets;
+import java.sql.SQLException;
+import java.util.*;
+import java.util.stream.Collectors;
 
 import static ch.gatzka.Sequences.ITEM_ID_SEQ;
 import static ch.gatzka.Tables.ITEM;
+import static ch.gatzka.Tables.ITEM_STAGING;
 
 @Service
 public class ItemRepository extends CrudRepository<ItemRecord> {
 
+    private static final int UPSERT_CHUNK_SIZE = 500;
+
+    private static final Field<Boolean> INSERTED = DSL.field("(xmax = 0)", SQLDataType.BOOLEAN).as("inserted");
+
     public ItemRepository(DSLContext dslContext) {
         super(dslContext, ITEM, ITEM_ID_SEQ, ITEM.ID);
     }
@@ -21,4 +35,163 @@ public Optional<ItemRecord> findByTarkovId(String tarkovMarketId){
         return find(ITEM.TARKOV_ID.eq(tarkovMarketId));
     }
 
+    public Map<String, Integer> readIdsByTarkovId() {
+        return dslContext.select(ITEM.TARKOV_ID, ITEM.ID).from(ITEM).fetchMap(ITEM.TARKOV_ID, ITEM.ID);
+    }
+
+    public Map<String, Integer> readIdsByTarkovIds(Collection<String> tarkovIds) {
+        return dslContext.select(ITEM.TARKOV_ID, ITEM.ID).from(ITEM).where(ITEM.TARKOV_ID.in(tarkovIds)).fetchMap(ITEM.TARKOV_ID, ITEM.ID);
+    }
+
+    public Map<String, Long> readFingerprintsByTarkovId() {
+        return dslContext.select(ITEM.TARKOV_ID, ITEM.FINGERPRINT).from(ITEM).fetchMap(ITEM.TARKOV_ID, ITEM.FINGERPRINT);
+    }
+
+    /**
+     * Inserts or updates all given items in chunked multi-row statements within a single transaction. Existing rows
+     * are only rewritten if their fingerprint changed. The items are consumed lazily, so a chunk is written as soon as
+     * it is complete.
+     *
+     * @return the items that were actually inserted or updated
+     */
+    public List<UpsertedItem> upsertByTarkovId(Iterable<ItemRecord> items) {
+        return dslContext.transactionResult(configuration -> {
+            DSLContext dslContext = configuration.dsl();
+            List<UpsertedItem> upsertedItems = new ArrayList<>();
+
+            Iterator<ItemRecord> iterator = items.iterator();
+            while (iterator.hasNext()) {
+                List<ItemRecord> chunk = new ArrayList<>(UPSERT_CHUNK_SIZE);
+                while (iterator.hasNext() && chunk.size() < UPSERT_CHUNK_SIZE) {
+                    chunk.add(iterator.next());
+                }
+
+                InsertSetStep<ItemRecord> insert = dslContext.insertInto(ITEM);
+                InsertSetMoreStep<ItemRecord> values = null;
+                for (ItemRecord record : chunk) {
+                    values = (values == null ? insert : values.newRecord()).set(record);
+                }
+
+                Objects.requireNonNull(values)
+                        .onConflict(ITEM.TARKOV_ID)
+                        .doUpdate()
+                        .set(excludedFields())
+                        .where(ITEM.FINGERPRINT.isDistinctFrom(DSL.excluded(ITEM.FINGERPRINT)))
+                        .returningResult(ITEM.ID, ITEM.TARKOV_ID, INSERTED)
+                        .fetch()
+                        .forEach(record -> upsertedItems.add(new UpsertedItem(record.value1(), record.value2(), record.value3())));
+            }
+
+            return upsertedItems;
+        });
+    }
+
+    /**
+     * Streams all given items into the unlogged staging table using {@code COPY} and merges them into the live table
+     * with a single statement. Everything runs in one transaction, so readers never see a partially merged catalog.
+     * The items are consumed lazily and written to the staging table as they arrive.
+     *
+     * @return the items that were actually inserted or updated
+     */
+    public List<UpsertedItem> copyByTarkovId(Iterable<ItemRecord> items) {
+        List<Field<?>> stagingFields = List.of(ITEM_STAGING.fields());
+        List<Field<?>> itemFields = stagingFields.stream().<Field<?>>map(field -> ITEM.field(field.getName())).toList();
+
+        return dslContext.transactionResult(configuration -> {
+            DSLContext dslContext = configuration.dsl();
+
+            dslContext.truncate(ITEM_STAGING).execute();
+            dslContext.connection(connection -> copyIn(connection.unwrap(PGConnection.class).getCopyAPI(), itemFields, items));
+
+            List<UpsertedItem> upsertedItems = new ArrayList<>();
+            dslContext.insertInto(ITEM)
+                    .columns(itemFields)
+                    .select(dslContext.select(stagingFields).from(ITEM_STAGING))
+                    .onConflict(ITEM.TARKOV_ID)
+                    .doUpdate()
+                    .set(excludedFields())
+                    .where(ITEM.FINGERPRINT.isDistinctFrom(DSL.excluded(ITEM.FINGERPRINT)))
+                    .returningResult(ITEM.ID, ITEM.TARKOV_ID, INSERTED)
+                    .fetch()
+                    .forEach(record -> upsertedItems.add(new UpsertedItem(record.value1(), record.value2(), record.value3())));
+
+            dslContext.truncate(ITEM_STAGING).execute();
+            return upsertedItems;
+        });
+    }
+
+    /**
+     * Sets the price and 24h average of the given game mode for all items that tarkov-market lists without market
+     * data, in a single statement. Items with market data and unchanged prices are left untouched.
+     *
+     * @return the number of items updated
+     */
+    public int updateMissingPrices(GameMode mode, Collection<FallbackPrice> prices) {
+        if (prices.isEmpty()) {
+            return 0;
+        }
+
+        Field<Integer> priceField = mode == GameMode.PvE ? ITEM.PVE_PRICE : ITEM.PVP_PRICE;
+        Field<Integer> avg24hPriceField = mode == GameMode.PvE ? ITEM.PVE_AVG24H_PRICE : ITEM.PVP_AVG24H_PRICE;
+
+        @SuppressWarnings("unchecked")
+        Row3<String, Integer, Integer>[] rows = prices.stream().map(price -> DSL.row(price.tarkovId(), price.price(), price.avg24hPrice())).toArray(Row3[]::new);
+        Table<Record3<String, Integer, Integer>> fallback = DSL.values(rows).as("fallback", "tarkov_id", "price", "avg24h_price");
+        Field<Integer> price = fallback.field("price", Integer.class);
+        Field<Integer> avg24hPrice = fallback.field("avg24h_price", Integer.class);
+
+        return dslContext.update(ITEM)
+                .set(priceField, price)
+                .set(avg24hPriceField, avg24hPrice)
+                .from(fallback)
+                .where(ITEM.TARKOV_ID.eq(fallback.field("tarkov_id", String.class)))
+                .and(ITEM.HAVE_MARKET_DATA.isFalse())
+                .and(DSL.row(priceField, avg24hPriceField).isDistinctFrom(price, avg24hPrice))
+                .execute();
+    }
+
+    private static void copyIn(CopyManager copyManager, List<Field<?>> fields, Iterable<ItemRecord> items) throws SQLException {
+        String columns = fields.stream().map(Field::getName).collect(Collectors.joining(", "));
+        CopyIn copyIn = copyManager.copyIn("COPY " + ITEM_STAGING.getName() + " (" + columns + ") FROM STDIN WITH (FORMAT csv)");
+        try {
+            for (ItemRecord item : items) {
+                StringBuilder line = new StringBuilder();
+                for (Field<?> field : fields) {
+                    if (!line.isEmpty()) {
+                        line.append(',');
+                    }
+                    Object value = item.get(field);
+                    if (value != null) {
+                        line.append('"').append(value.toString().replace("\"", "\"\"")).append('"');
+                    }
+                }
+                byte[] bytes = line.append('\n').toString().getBytes(StandardCharsets.UTF_8);
+                copyIn.writeToCopy(bytes, 0, bytes.length);
+            }
+            copyIn.endCopy();
+        } finally {
+            if (copyIn.isActive()) {
+                copyIn.cancelCopy();
+            }
+        }
+    }
+
+    private static Map<Field<?>, Field<?>> excludedFields() {
+        Map<Field<?>, Field<?>> fields = new LinkedHashMap<>();
+        for (Field<?> field : ITEM.fields()) {
+            if (!field.equals(ITEM.ID) && !field.equals(ITEM.TARKOV_ID)) {
+                fields.put(field, DSL.excluded(field));
+            }
+        }
+        return fields;
+    }
+
+    public record UpsertedItem(int id, String tarkovId, boolean inserted) {
+
+    }
+
+    public record FallbackPrice(String tarkovId, int price, int avg24hPrice) {
+
+    }
+
 }
@@ -0,0 +1,43 @@
+package ch.gatzka.repository;
+
+import org.jooq.Condition;
+import org.jooq.Field;
+import org.jooq.impl.DSL;
+import org.jooq.impl.SQLDataType;
+
+import static ch.gatzka.Tables.ITEM;
+
+/**
+ * Fuzzy item name search backed by the trigram indexes on the search keys of {@code item.name} and
+ * {@code item.short_name}. Case and punctuation are ignored, small typos still match.
+ */
+public final class ItemSearch {
+
+    private ItemSearch() {
+    }
+
+    /**
+     * @return condition matching all items whose name or short name contains a word similar to the given text
+     */
+    public static Condition matches(String text) {
+        Field<String> query = searchKey(DSL.val(text));
+        return DSL.condition("{0} <% {1}", query, searchKey(ITEM.NAME)).or(DSL.condition("{0} <% {1}", query, searchKey(ITEM.SHORT_NAME)));
+    }
+
+    /**
+     * @return similarity between the given text and the best matching word of the name or short name
+     */
+    public static Field<Float> rank(String text) {
+        Field<String> query = searchKey(DSL.val(text));
+        return DSL.greatest(wordSimilarity(query, searchKey(ITEM.NAME)), wordSimilarity(query, searchKey(ITEM.SHORT_NAME)));
+    }
+
+    private static Field<String> searchKey(Field<String> field) {
+        return DSL.field("search_key({0})", SQLDataType.CLOB, field);
+    }
+
+    private static Field<Float> wordSimilarity(Field<String> query, Field<String> field) {
+        return DSL.field("word_similarity({0}, {1})", SQLDataType.REAL, query, field);
+    }
+
+}
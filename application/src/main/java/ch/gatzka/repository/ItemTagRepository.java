@@ -5,6 +5,10 @@
 import org.jooq.DSLContext;
 import org.springframework.stereotype.Service;
 
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
 import static ch.gatzka.Tables.ITEM_TAG;
 
 @Service
@@ -18,4 +22,20 @@ public void deleteByItemId(int itemId){
         delete(ITEM_TAG.ITEM_ID.eq(itemId));
     }
 
+    public Map<Integer, List<Integer>> readTagIdsByItemId() {
+        return dslContext.select(ITEM_TAG.ITEM_ID, ITEM_TAG.TAG_ID).from(ITEM_TAG).fetchGroups(ITEM_TAG.ITEM_ID, ITEM_TAG.TAG_ID);
+    }
+
+    public void insertAll(Collection<ItemTagRecord> itemTags) {
+        if (!itemTags.isEmpty()) {
+            dslContext.batchInsert(itemTags).execute();
+        }
+    }
+
+    public void deleteAll(Collection<ItemTagRecord> itemTags) {
+        if (!itemTags.isEmpty()) {
+            dslContext.batchDelete(itemTags).execute();
+        }
+    }
+
 }
@@ -0,0 +1,89 @@
+package ch.gatzka.repository;
+
+import ch.gatzka.core.repository.CrudRepository;
+import ch.gatzka.tables.records.KeyReportSummaryRecord;
+import org.jooq.*;
+import org.jooq.impl.DSL;
+import org.jooq.impl.SQLDataType;
+import org.springframework.stereotype.Service;
+
+import static ch.gatzka.Tables.*;
+
+/**
+ * Maintains one precomputed summary row per key report, so listing reports does not aggregate the loot of all reports
+ * on every read.
+ */
+@Service
+public class KeyReportSummaryRepository extends CrudRepository<KeyReportSummaryRecord> {
+
+    public KeyReportSummaryRepository(DSLContext dslContext) {
+        super(dslContext, KEY_REPORT_SUMMARY);
+    }
+
+    /**
+     * Writes the summary of the given report, replacing an existing one.
+     */
+    public void summarize(int keyReportId) {
+        insertSummaries(KEY_REPORT_VIEW.KEY_REPORT_ID.eq(keyReportId))
+                .onConflict(KEY_REPORT_SUMMARY.KEY_REPORT_ID)
+                .doUpdate()
+                .set(KEY_REPORT_SUMMARY.KEY_NAME, DSL.excluded(KEY_REPORT_SUMMARY.KEY_NAME))
+                .set(KEY_REPORT_SUMMARY.IMAGE_LINK, DSL.excluded(KEY_REPORT_SUMMARY.IMAGE_LINK))
+                .set(KEY_REPORT_SUMMARY.REPORTED_AT, DSL.excluded(KEY_REPORT_SUMMARY.REPORTED_AT))
+                .set(KEY_REPORT_SUMMARY.REPORTED_BY, DSL.excluded(KEY_REPORT_SUMMARY.REPORTED_BY))
+                .set(KEY_REPORT_SUMMARY.ITEM_COUNT, DSL.excluded(KEY_REPORT_SUMMARY.ITEM_COUNT))
+                .set(KEY_REPORT_SUMMARY.GAME_MODE, DSL.excluded(KEY_REPORT_SUMMARY.GAME_MODE))
+                .execute();
+    }
+
+    /**
+     * Writes the summaries of all reports that do not have one yet. Only the loot of those reports is aggregated.
+     *
+     * @return the number of summaries written
+     */
+    public int backfill() {
+        Field<String> imageLink = DSL.coalesce(DSL.nullif(DSL.trim(ITEM.ICON), ""), ITEM.IMAGE_BIG_LINK);
+
+        return dslContext.insertInto(KEY_REPORT_SUMMARY)
+                .columns(KEY_REPORT_SUMMARY.KEY_REPORT_ID, KEY_REPORT_SUMMARY.KEY_NAME, KEY_REPORT_SUMMARY.IMAGE_LINK, KEY_REPORT_SUMMARY.REPORTED_AT, KEY_REPORT_SUMMARY.REPORTED_BY, KEY_REPORT_SUMMARY.ITEM_COUNT, KEY_REPORT_SUMMARY.GAME_MODE)
+                .select(DSL.select(KEY_REPORT.ID, ITEM.NAME, imageLink, KEY_REPORT.REPORTED_AT, KEY_REPORT.ACCOUNT_ID, DSL.sum(LOOT_REPORT.COUNT).cast(SQLDataType.BIGINT), KEY_REPORT.MODE)
+                        .from(KEY_REPORT)
+                        .leftAntiJoin(KEY_REPORT_SUMMARY)
+                        .on(KEY_REPORT_SUMMARY.KEY_REPORT_ID.eq(KEY_REPORT.ID))
+                        .join(LOOT_REPORT)
+                        .on(LOOT_REPORT.KEY_REPORT_ID.eq(KEY_REPORT.ID))
+                        .join(KEY)
+                        .on(KEY.ID.eq(KEY_REPORT.KEY_ID))
+                        .join(ITEM)
+                        .on(ITEM.ID.eq(KEY.ITEM_ID))
+                        .groupBy(KEY_REPORT.ID, ITEM.NAME, ITEM.ICON, ITEM.IMAGE_BIG_LINK))
+                .onConflictDoNothing()
+                .execute();
+    }
+
+    /**
+     * Copies the current name and image of every key into the summaries of its reports.
+     *
+     * @return the number of summaries updated
+     */
+    public int refreshKeyItems() {
+        Field<String> imageLink = DSL.coalesce(DSL.nullif(DSL.trim(ITEM.ICON), ""), ITEM.IMAGE_BIG_LINK);
+
+        return dslContext.update(KEY_REPORT_SUMMARY)
+                .set(KEY_REPORT_SUMMARY.KEY_NAME, ITEM.NAME)
+                .set(KEY_REPORT_SUMMARY.IMAGE_LINK, imageLink)
+                .from(KEY_REPORT.join(KEY).on(KEY_REPORT.KEY_ID.eq(KEY.ID)).join(ITEM).on(KEY.ITEM_ID.eq(ITEM.ID)))
+                .where(KEY_REPORT_SUMMARY.KEY_REPORT_ID.eq(KEY_REPORT.ID))
+                .and(DSL.row(KEY_REPORT_SUMMARY.KEY_NAME, KEY_REPORT_SUMMARY.IMAGE_LINK).isDistinctFrom(ITEM.NAME, imageLink))
+                .execute();
+    }
+
+    private InsertOnDuplicateStep<KeyReportSummaryRecord> insertSummaries(Condition condition) {
+        return dslContext.insertInto(KEY_REPORT_SUMMARY)
+                .columns(KEY_REPORT_SUMMARY.KEY_REPORT_ID, KEY_REPORT_SUMMARY.KEY_NAME, KEY_REPORT_SUMMARY.IMAGE_LINK, KEY_REPORT_SUMMARY.REPORTED_AT, KEY_REPORT_SUMMARY.REPORTED_BY, KEY_REPORT_SUMMARY.ITEM_COUNT, KEY_REPORT_SUMMARY.GAME_MODE)
+                .select(DSL.select(KEY_REPORT_VIEW.KEY_REPORT_ID, KEY_REPORT_VIEW.KEY_NAME, KEY_REPORT_VIEW.IMAGE_LINK, KEY_REPORT_VIEW.REPORTED_AT, KEY_REPORT_VIEW.REPORTED_BY, KEY_REPORT_VIEW.ITEM_COUNT, KEY_REPORT_VIEW.GAME_MODE)
+                        .from(KEY_REPORT_VIEW)
+                        .where(condition));
+    }
+
+}
@@ -3,9 +3,11 @@
 import ch.gatzka.core.repository.CrudRepository;
 import ch.gatzka.tables.records.KeyRecord;
 import org.jooq.DSLContext;
-import org.jooq.Table;
+import org.jooq.InsertValuesStep2;
+import org.jooq.impl.DSL;
 import org.springframework.stereotype.Service;
 
+import java.util.Map;
 import java.util.Optional;
 
 import static ch.gatzka.Sequences.KEY_ID_SEQ;
@@ -22,4 +24,27 @@ public Optional<KeyRecord> findByItemId(int itemId){
         return find(KEY.ITEM_ID.eq(itemId));
     }
 
+    /**
+     * Inserts or updates the uses of all given keys in a single statement. Keys whose uses did not change are left
+     * untouched.
+     *
+     * @return the number of keys inserted or updated
+     */
+    public int upsertByItemId(Map<Integer, Integer> usesByItemId) {
+        if (usesByItemId.isEmpty()) {
+            return 0;
+        }
+
+        InsertValuesStep2<KeyRecord, Integer, Integer> insert = dslContext.insertInto(KEY, KEY.ITEM_ID, KEY.USES);
+        for (Map.Entry<Integer, Integer> entry : usesByItemId.entrySet()) {
+            insert = insert.values(entry.getKey(), entry.getValue());
+        }
+
+        return insert.onConflict(KEY.ITEM_ID)
+                .doUpdate()
+                .set(KEY.USES, DSL.excluded(KEY.USES))
+                .where(KEY.USES.isDistinctFrom(DSL.excluded(KEY.USES)))
+                .execute();
+    }
+
 }
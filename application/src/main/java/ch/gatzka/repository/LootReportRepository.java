@@ -1,13 +1,18 @@
 package ch.gatzka.repository;
 
 import ch.gatzka.core.repository.CrudRepository;
+import ch.gatzka.tables.records.KeyReportRecord;
 import ch.gatzka.tables.records.LootReportRecord;
-import org.jooq.DSLContext;
-import org.jooq.Result;
+import org.jooq.*;
+import org.jooq.impl.DSL;
+import org.jooq.impl.SQLDataType;
 import org.springframework.stereotype.Service;
 
+import java.math.BigDecimal;
+import java.util.List;
+
 import static ch.gatzka.Sequences.LOOT_REPORT_ID_SEQ;
-import static ch.gatzka.Tables.LOOT_REPORT;
+import static ch.gatzka.Tables.*;
 
 @Service
 public class LootReportRepository extends CrudRepository<LootReportRecord> {
@@ -20,5 +25,57 @@ public Result<LootReportRecord> readByKeyReportId(int keyReportId) {
         return read(LOOT_REPORT.KEY_REPORT_ID.eq(keyReportId));
     }
 
+    /**
+     * @return number of loot reports of the given item and the total number of items found
+     */
+    public LootTotals readTotalsByItemId(int itemId) {
+        return dslContext.select(DSL.count(), DSL.coalesce(DSL.sum(LOOT_REPORT.COUNT), BigDecimal.ZERO))
+                .from(LOOT_REPORT)
+                .where(LOOT_REPORT.ITEM_ID.eq(itemId))
+                .fetchSingle(record -> new LootTotals(record.value1(), record.value2().intValue()));
+    }
+
+    /**
+     * Computes for every key that yielded the given item how many of it were found and the chance per opened key, in a
+     * single grouped query. Keys that yield the item on every report are left out.
+     *
+     * @param limit maximum number of keys, highest chance first
+     */
+    public List<DropChance> readDropChancesByItemId(int itemId, int limit) {
+        Table<KeyReportRecord> totalReport = KEY_REPORT.as("total_report");
+        Field<Integer> totalReports = DSL.field(DSL.selectCount().from(totalReport).where(totalReport.field(KEY_REPORT.KEY_ID).eq(KEY_REPORT.KEY_ID)));
+
+        Table<?> found = dslContext.select(KEY_REPORT.KEY_ID, DSL.sum(LOOT_REPORT.COUNT).as("items_found"), totalReports.as("total_reports"))
+                .from(LOOT_REPORT)
+                .join(KEY_REPORT)
+                .on(LOOT_REPORT.KEY_REPORT_ID.eq(KEY_REPORT.ID))
+                .where(LOOT_REPORT.ITEM_ID.eq(itemId))
+                .groupBy(KEY_REPORT.KEY_ID)
+                .asTable("found");
+
+        Field<Integer> keyId = found.field(KEY_REPORT.KEY_ID);
+        Field<BigDecimal> itemsFound = found.field("items_found", BigDecimal.class);
+        Field<Double> chance = itemsFound.cast(SQLDataType.DOUBLE).div(found.field("total_reports", Integer.class));
+
+        return dslContext.select(ITEM.ICON, ITEM.NAME, itemsFound, chance)
+                .from(found)
+                .join(KEY)
+                .on(KEY.ID.eq(keyId))
+                .join(ITEM)
+                .on(ITEM.ID.eq(KEY.ITEM_ID))
+                .where(chance.lt(1.0))
+                .orderBy(chance.desc(), ITEM.NAME)
+                .limit(limit)
+                .fetch(record -> new DropChance(record.value1(), record.value2(), record.value3().intValue(), record.value4()));
+    }
+
+    public record LootTotals(int reportCount, int itemCount) {
+
+    }
+
+    public record DropChance(String keyIcon, String keyName, int itemsFound, double chance) {
+
+    }
+
 
 }
@@ -3,9 +3,11 @@
 import ch.gatzka.core.repository.CrudRepository;
 import ch.gatzka.tables.records.TagRecord;
 import org.jooq.DSLContext;
-import org.jooq.Table;
+import org.jooq.InsertValuesStep1;
 import org.springframework.stereotype.Service;
 
+import java.util.Collection;
+import java.util.Map;
 import java.util.Optional;
 
 import static ch.gatzka.Sequences.TAG_ID_SEQ;
@@ -21,4 +23,20 @@ public TagRepository(DSLContext dslContext) {
     public Optional<TagRecord> findByName(String name) {
         return find(TAG.NAME.eq(name));
     }
+
+    public Map<String, Integer> readIdsByName() {
+        return dslContext.select(TAG.NAME, TAG.ID).from(TAG).fetchMap(TAG.NAME, TAG.ID);
+    }
+
+    public void insertAll(Collection<String> names) {
+        if (names.isEmpty()) {
+            return;
+        }
+
+        InsertValuesStep1<TagRecord, String> insert = dslContext.insertInto(TAG, TAG.NAME);
+        for (String name : names) {
+            insert = insert.values(name);
+        }
+        insert.onConflictDoNothing().execute();
+    }
 }
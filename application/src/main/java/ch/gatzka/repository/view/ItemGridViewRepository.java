@@ -1,11 +1,18 @@
 package ch.gatzka.repository.view;
 
 import ch.gatzka.core.repository.ReadOnlyRepository;
+import ch.gatzka.repository.ItemSearch;
 import ch.gatzka.tables.records.ItemGridViewRecord;
+import org.jooq.Condition;
 import org.jooq.DSLContext;
+import org.jooq.Result;
+import org.jooq.impl.DSL;
 import org.springframework.stereotype.Service;
 
-import static ch.gatzka.Tables.ITEM_GRID_VIEW;
+import java.util.Collection;
+import java.util.List;
+
+import static ch.gatzka.Tables.*;
 
 @Service
 public class ItemGridViewRepository extends ReadOnlyRepository<ItemGridViewRecord> {
@@ -14,4 +21,48 @@ public ItemGridViewRepository(DSLContext dslContext) {
         super(dslContext, ITEM_GRID_VIEW);
     }
 
+    /**
+     * @param matchAll whether an entry needs all given tags instead of at least one
+     * @return condition matching the entries whose item has the given tags, answered by the item_tag indexes
+     */
+    public static Condition hasTags(Collection<Integer> tagIds, boolean matchAll) {
+        if (matchAll) {
+            return DSL.and(tagIds.stream().map(tagId -> DSL.exists(DSL.selectOne().from(ITEM_TAG).where(ITEM_TAG.ITEM_ID.eq(ITEM_GRID_VIEW.ITEM_ID)).and(ITEM_TAG.TAG_ID.eq(tagId)))).toList());
+        }
+        return DSL.exists(DSL.selectOne().from(ITEM_TAG).where(ITEM_TAG.ITEM_ID.eq(ITEM_GRID_VIEW.ITEM_ID)).and(ITEM_TAG.TAG_ID.in(tagIds)));
+    }
+
+    /**
+     * Reads the entries whose item name matches the given text, best matches first.
+     *
+     * @see ItemSearch
+     */
+    public Result<ItemGridViewRecord> search(String text, int limit, Condition... conditions) {
+        return dslContext.select(ITEM_GRID_VIEW.fields())
+                .from(ITEM_GRID_VIEW)
+                .join(ITEM)
+                .on(ITEM.ID.eq(ITEM_GRID_VIEW.ITEM_ID))
+                .where(ItemSearch.matches(text))
+                .and(conditions)
+                .orderBy(ItemSearch.rank(text).desc(), ITEM_GRID_VIEW.NAME)
+                .limit(limit)
+                .fetchInto(ITEM_GRID_VIEW);
+    }
+
+    /**
+     * Reads the ids of all items whose name matches the given text, without the limit of the ranked search.
+     *
+     * @see ItemSearch
+     */
+    public List<Integer> searchIds(String text) {
+        return dslContext.select(ITEM.ID).from(ITEM).where(ItemSearch.matches(text)).fetch(ITEM.ID);
+    }
+
+    /**
+     * Refreshes the materialized view without blocking concurrent reads.
+     */
+    public void refresh() {
+        dslContext.execute("REFRESH MATERIALIZED VIEW CONCURRENTLY {0}", ITEM_GRID_VIEW);
+    }
+
 }
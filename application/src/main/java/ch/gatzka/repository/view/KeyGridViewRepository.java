@@ -1,10 +1,14 @@
 package ch.gatzka.repository.view;
 
 import ch.gatzka.core.repository.ReadOnlyRepository;
+import ch.gatzka.repository.ItemSearch;
 import ch.gatzka.tables.records.KeyGridViewRecord;
+import org.jooq.Condition;
 import org.jooq.DSLContext;
+import org.jooq.Result;
 import org.springframework.stereotype.Service;
 
+import static ch.gatzka.Tables.ITEM;
 import static ch.gatzka.Tables.KEY_GRID_VIEW;
 
 @Service
@@ -14,4 +18,28 @@ public KeyGridViewRepository(DSLContext dslContext) {
         super(dslContext, KEY_GRID_VIEW);
     }
 
+    /**
+     * Reads the entries whose item name matches the given text, best matches first.
+     *
+     * @see ItemSearch
+     */
+    public Result<KeyGridViewRecord> search(String text, int limit, Condition... conditions) {
+        return dslContext.select(KEY_GRID_VIEW.fields())
+                .from(KEY_GRID_VIEW)
+                .join(ITEM)
+                .on(ITEM.ID.eq(KEY_GRID_VIEW.ITEM_ID))
+                .where(ItemSearch.matches(text))
+                .and(conditions)
+                .orderBy(ItemSearch.rank(text).desc(), KEY_GRID_VIEW.NAME)
+                .limit(limit)
+                .fetchInto(KEY_GRID_VIEW);
+    }
+
+    /**
+     * Refreshes the materialized view without blocking concurrent reads.
+     */
+    public void refresh() {
+        dslContext.execute("REFRESH MATERIALIZED VIEW CONCURRENTLY {0}", KEY_GRID_VIEW);
+    }
+
 }
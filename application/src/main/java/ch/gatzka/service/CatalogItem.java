@@ -0,0 +1,36 @@
+package ch.gatzka.service;
+
+/**
+ * Handle on a row of the {@link ItemColumns} of the item catalog, exposing the columns the views need.
+ */
+public record CatalogItem(ItemColumns columns, int row) {
+
+    public int getId() {
+        return columns.id(row);
+    }
+
+    public String getName() {
+        return columns.name(row);
+    }
+
+    public String getIcon() {
+        return columns.icon(row);
+    }
+
+    public String getImageLink() {
+        return columns.imageLink(row);
+    }
+
+    public String getImageBigLink() {
+        return columns.imageBigLink(row);
+    }
+
+    public String getWikiLink() {
+        return columns.wikiLink(row);
+    }
+
+    public String getLink() {
+        return columns.link(row);
+    }
+
+}
@@ -0,0 +1,18 @@
+package ch.gatzka.service;
+
+import ch.gatzka.tables.records.KeyRecord;
+
+/**
+ * Key of the item catalog together with its item, so views can show the name and image of a key without a lookup.
+ */
+public record CatalogKey(KeyRecord key, CatalogItem item) {
+
+    public Integer getId() {
+        return key.getId();
+    }
+
+    public Integer getUses() {
+        return key.getUses();
+    }
+
+}
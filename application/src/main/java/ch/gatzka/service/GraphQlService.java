@@ -5,9 +5,19 @@
 import com.apollographql.java.client.ApolloClient;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiFunction;
+import java.util.function.Consumer;
+import java.util.function.Function;
 
 @Slf4j
 @Service
@@ -16,7 +26,87 @@ public class GraphQlService {
 
     private final ApolloClient apolloClient;
 
+    @Value("${graphql.timeout:1m}")
+    private Duration timeout;
+
+    @Value("${graphql.fallback-window:30m}")
+    private Duration fallbackWindow;
+
+    @Value("${graphql.page-size:500}")
+    private int pageSize;
+
+    /**
+     * Running queries, keyed by the query itself. Generated operations implement equality over their variables, so
+     * identical queries share one request.
+     */
+    private final Map<Query<?>, CompletableFuture<?>> inFlight = new ConcurrentHashMap<>();
+
+    private final Map<Query<?>, LastGoodResponse> lastGoodResponses = new ConcurrentHashMap<>();
+
     public <R extends Query.Data> R runQuery(Query<R> query) {
+        log.debug("Waiting for GraphQL query {} to finish", query.name());
+        return runQueryAsync(query).join();
+    }
+
+    /**
+     * Runs the given query with the configured deadline. A query identical to one that is still running joins the
+     * running request. If the request fails, the last good response is served as long as it is within the fallback
+     * window.
+     */
+    @SuppressWarnings("unchecked")
+    public <R extends Query.Data> CompletableFuture<R> runQueryAsync(Query<R> query) {
+        CompletableFuture<R> future = new CompletableFuture<>();
+        CompletableFuture<R> existing = (CompletableFuture<R>) inFlight.putIfAbsent(query, future);
+        if (existing != null) {
+            log.debug("GraphQL query {} joins the running request", query.name());
+            return existing;
+        }
+
+        execute(query).orTimeout(timeout.toMillis(), TimeUnit.MILLISECONDS).whenComplete((data, e) -> {
+            inFlight.remove(query, future);
+            if (e == null) {
+                lastGoodResponses.put(query, new LastGoodResponse(data, Instant.now()));
+                future.complete(data);
+                return;
+            }
+
+            LastGoodResponse lastGoodResponse = lastGoodResponses.get(query);
+            if (lastGoodResponse != null && lastGoodResponse.receivedAt().plus(fallbackWindow).isAfter(Instant.now())) {
+                log.warn("GraphQL query {} failed, serving the response received at {}", query.name(), lastGoodResponse.receivedAt(), e);
+                future.complete((R) lastGoodResponse.data());
+            } else {
+                future.completeExceptionally(e);
+            }
+        });
+        return future;
+    }
+
+    /**
+     * Runs a paged query page by page and hands every page to the consumer as soon as it arrived, so at most one page
+     * per request is buffered. The next page is requested while the consumer processes the current one, pages are
+     * consumed one at a time and in order.
+     *
+     * @param pageQuery creates the query of a page from limit and offset
+     * @param items     extracts the elements of a page
+     * @return future completing with the total number of elements once the last page is consumed
+     */
+    public <R extends Query.Data, T> CompletableFuture<Integer> runPagedQuery(BiFunction<Integer, Integer, Query<R>> pageQuery, Function<R, List<T>> items, Consumer<List<T>> consumer) {
+        return fetchPage(pageQuery, items, consumer, 0, CompletableFuture.completedFuture(null));
+    }
+
+    private <R extends Query.Data, T> CompletableFuture<Integer> fetchPage(BiFunction<Integer, Integer, Query<R>> pageQuery, Function<R, List<T>> items, Consumer<List<T>> consumer, int offset, CompletableFuture<Void> consumed) {
+        Query<R> query = pageQuery.apply(pageSize, offset);
+        return runQueryAsync(query).thenApply(items).thenCompose(page -> {
+            CompletableFuture<Void> pageConsumed = consumed.thenRun(() -> consumer.accept(page));
+            if (page.size() < pageSize || pageConsumed.isCompletedExceptionally()) {
+                return pageConsumed.thenApply(_ -> offset + page.size());
+            }
+            log.debug("GraphQL query {} received {} elements at offset {}", query.name(), page.size(), offset);
+            return fetchPage(pageQuery, items, consumer, offset + pageSize, pageConsumed);
+        });
+    }
+
+    private <R extends Query.Data> CompletableFuture<R> execute(Query<R> query) {
         log.info("Running GraphQL query {}", query.name());
 
         CompletableFuture<ApolloResponse<R>> future = new CompletableFuture<>();
@@ -33,8 +123,11 @@ public <R extends Query.Data> R runQuery(Query<R> query) {
             future.complete(response);
         });
 
-        log.debug("Waiting for GraphQL query {} to finish", query.name());
-        return future.join().data;
+        return future.thenApply(response -> response.data);
+    }
+
+    private record LastGoodResponse(Query.Data data, Instant receivedAt) {
+
     }
 
 }
@@ -0,0 +1,64 @@
+package ch.gatzka.service;
+
+import ch.gatzka.repository.ItemRepository;
+import ch.gatzka.repository.ItemTagRepository;
+import ch.gatzka.repository.KeyRepository;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Application wide snapshot of all items and keys. The snapshot is rebuilt after each sync cycle and published
+ * with a single reference swap, so readers always see a consistent catalog without querying the database. Items are
+ * held in the compact {@link ItemColumns} layout. The key records of a snapshot are shared between all sessions and
+ * must not be modified.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class ItemCatalog {
+
+    private final ItemRepository itemRepository;
+
+    private final KeyRepository keyRepository;
+
+    private final ItemTagRepository itemTagRepository;
+
+    private volatile Snapshot snapshot = Snapshot.EMPTY;
+
+    @PostConstruct
+    public void rebuild() {
+        long startTime = System.currentTimeMillis();
+
+        ItemColumns columns = new ItemColumns(itemRepository.readAll(), itemTagRepository.readTagIdsByItemId());
+        List<CatalogItem> items = columns.items().stream().sorted(Comparator.comparing(CatalogItem::getName)).toList();
+        List<CatalogKey> keys = keyRepository.readAll().stream()
+                .filter(key -> columns.row(key.getItemId()) >= 0)
+                .map(key -> new CatalogKey(key, columns.item(columns.row(key.getItemId()))))
+                .sorted(Comparator.comparing(key -> key.item().getName()))
+                .toList();
+
+        snapshot = new Snapshot(columns, items, keys);
+        log.info("Item catalog rebuilt with {} items and {} keys after {} ms", columns.size(), keys.size(), System.currentTimeMillis() - startTime);
+    }
+
+    public Snapshot get() {
+        return snapshot;
+    }
+
+    /**
+     * @param items items ordered by name
+     * @param keys  keys whose item is in the catalog, ordered by item name
+     */
+    public record Snapshot(ItemColumns columns, List<CatalogItem> items, List<CatalogKey> keys) {
+
+        static final Snapshot EMPTY = new Snapshot(new ItemColumns(List.of(), Map.of()), List.of(), List.of());
+
+    }
+
+}
@@ -0,0 +1,327 @@
+package ch.gatzka.service;
+
+import ch.gatzka.enums.GameMode;
+import ch.gatzka.tables.records.ItemRecord;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.*;
+
+/**
+ * Column oriented, read only copy of the item table. Every column is a primitive array indexed by row, prices and
+ * diffs hold one array per game mode, trader names and currencies are dictionary encoded. Rows are ordered by item
+ * id, so the row of an item is found by binary search.
+ */
+public final class ItemColumns {
+
+    private static final GameMode[] MODES = GameMode.values();
+
+    private final int[] ids;
+
+    private final String[] tarkovIds;
+
+    private final String[] tarkovMarketIds;
+
+    private final String[] names;
+
+    private final String[] shortNames;
+
+    private final String[] icons;
+
+    private final String[] links;
+
+    private final String[] wikiLinks;
+
+    private final String[] imageLinks;
+
+    private final String[] imageBigLinks;
+
+    private final String[] references;
+
+    private final BitSet bannedOnFlea = new BitSet();
+
+    private final BitSet haveMarketData = new BitSet();
+
+    private final BitSet functional = new BitSet();
+
+    private final int[] slots;
+
+    private final long[] updated;
+
+    private final int[][] prices;
+
+    private final int[][] basePrices;
+
+    private final int[][] avg24hPrices;
+
+    private final int[][] avg7daysPrices;
+
+    private final int[][] traderPrices;
+
+    private final int[][] traderPricesRouble;
+
+    private final float[][] diffs24h;
+
+    private final float[][] diffs7days;
+
+    private final short[][] traderNames;
+
+    private final short[][] traderCurrencies;
+
+    private final int[][] tagIds;
+
+    private final Dictionary traderNameDictionary = new Dictionary();
+
+    private final Dictionary currencyDictionary = new Dictionary();
+
+    private final CatalogItem[] items;
+
+    /**
+     * @param tagIdsByItemId ids of the tags of every item
+     */
+    public ItemColumns(Collection<ItemRecord> records, Map<Integer, ? extends Collection<Integer>> tagIdsByItemId) {
+        List<ItemRecord> sorted = records.stream().sorted(Comparator.comparing(ItemRecord::getId)).toList();
+        int size = sorted.size();
+
+        ids = new int[size];
+        tarkovIds = new String[size];
+        tarkovMarketIds = new String[size];
+        names = new String[size];
+        shortNames = new String[size];
+        icons = new String[size];
+        links = new String[size];
+        wikiLinks = new String[size];
+        imageLinks = new String[size];
+        imageBigLinks = new String[size];
+        references = new String[size];
+        slots = new int[size];
+        updated = new long[size];
+        prices = new int[MODES.length][size];
+        basePrices = new int[MODES.length][size];
+        avg24hPrices = new int[MODES.length][size];
+        avg7daysPrices = new int[MODES.length][size];
+        traderPrices = new int[MODES.length][size];
+        traderPricesRouble = new int[MODES.length][size];
+        diffs24h = new float[MODES.length][size];
+        diffs7days = new float[MODES.length][size];
+        traderNames = new short[MODES.length][size];
+        traderCurrencies = new short[MODES.length][size];
+        tagIds = new int[size][];
+        items = new CatalogItem[size];
+
+        for (int row = 0; row < size; row++) {
+            ItemRecord record = sorted.get(row);
+            ids[row] = record.getId();
+            tarkovIds[row] = record.getTarkovId();
+            tarkovMarketIds[row] = record.getTarkovMarketId();
+            names[row] = record.getName();
+            shortNames[row] = record.getShortName();
+            icons[row] = record.getIcon();
+            links[row] = record.getLink();
+            wikiLinks[row] = record.getWikiLink();
+            imageLinks[row] = record.getImageLink();
+            imageBigLinks[row] = record.getImageBigLink();
+            references[row] = record.getReference();
+            bannedOnFlea.set(row, record.getBannedOnFlea());
+            haveMarketData.set(row, record.getHaveMarketData());
+            functional.set(row, record.getIsFunctional());
+            slots[row] = record.getSlots();
+            updated[row] = record.getUpdated().toEpochSecond(ZoneOffset.UTC);
+
+            set(GameMode.PvE, row, record.getPvePrice(), record.getPveBasePrice(), record.getPveAvg24hPrice(), record.getPveAvg7daysPrice(), record.getPveTraderPrice(), record.getPveTraderPriceRouble(), record.getPveDiff24h(), record.getPveDiff7days(), record.getPveTraderName(), record.getPveTraderPriceCurrency());
+            set(GameMode.PvP, row, record.getPvpPrice(), record.getPvpBasePrice(), record.getPvpAvg24hPrice(), record.getPvpAvg7daysPrice(), record.getPvpTraderPrice(), record.getPvpTraderPriceRouble(), record.getPvpDiff24h(), record.getPvpDiff7days(), record.getPvpTraderName(), record.getPvpTraderPriceCurrency());
+
+            Collection<Integer> itemTagIds = tagIdsByItemId.get(record.getId());
+            tagIds[row] = itemTagIds == null ? new int[0] : itemTagIds.stream().mapToInt(Integer::intValue).sorted().toArray();
+            items[row] = new CatalogItem(this, row);
+        }
+    }
+
+    private void set(GameMode mode, int row, int price, int basePrice, int avg24hPrice, int avg7daysPrice, int traderPrice, int traderPriceRouble, double diff24h, double diff7days, String traderName, String traderCurrency) {
+        int column = mode.ordinal();
+        prices[column][row] = price;
+        basePrices[column][row] = basePrice;
+        avg24hPrices[column][row] = avg24hPrice;
+        avg7daysPrices[column][row] = avg7daysPrice;
+        traderPrices[column][row] = traderPrice;
+        traderPricesRouble[column][row] = traderPriceRouble;
+        diffs24h[column][row] = (float) diff24h;
+        diffs7days[column][row] = (float) diff7days;
+        traderNames[column][row] = traderNameDictionary.encode(traderName);
+        traderCurrencies[column][row] = currencyDictionary.encode(traderCurrency);
+    }
+
+    public int size() {
+        return ids.length;
+    }
+
+    /**
+     * @return row of the given item, {@code -1} if there is none
+     */
+    public int row(int itemId) {
+        int row = Arrays.binarySearch(ids, itemId);
+        return row < 0 ? -1 : row;
+    }
+
+    public CatalogItem item(int row) {
+        return items[row];
+    }
+
+    public List<CatalogItem> items() {
+        return List.of(items);
+    }
+
+    public int id(int row) {
+        return ids[row];
+    }
+
+    public String tarkovId(int row) {
+        return tarkovIds[row];
+    }
+
+    public String tarkovMarketId(int row) {
+        return tarkovMarketIds[row];
+    }
+
+    public String name(int row) {
+        return names[row];
+    }
+
+    public String shortName(int row) {
+        return shortNames[row];
+    }
+
+    public String icon(int row) {
+        return icons[row];
+    }
+
+    public String link(int row) {
+        return links[row];
+    }
+
+    public String wikiLink(int row) {
+        return wikiLinks[row];
+    }
+
+    public String imageLink(int row) {
+        return imageLinks[row];
+    }
+
+    public String imageBigLink(int row) {
+        return imageBigLinks[row];
+    }
+
+    public String reference(int row) {
+        return references[row];
+    }
+
+    public boolean bannedOnFlea(int row) {
+        return bannedOnFlea.get(row);
+    }
+
+    /**
+     * @return ids of all items that are, or are not, banned on the flea market
+     */
+    public BitSet idsByBannedOnFlea(boolean banned) {
+        BitSet result = new BitSet();
+        for (int row = 0; row < ids.length; row++) {
+            if (bannedOnFlea.get(row) == banned) {
+                result.set(ids[row]);
+            }
+        }
+        return result;
+    }
+
+    public boolean haveMarketData(int row) {
+        return haveMarketData.get(row);
+    }
+
+    public boolean functional(int row) {
+        return functional.get(row);
+    }
+
+    public int slots(int row) {
+        return slots[row];
+    }
+
+    /**
+     * @return upstream update time as of the last content change of the item. Rows whose fingerprint did not change
+     * are not rewritten, so this does not follow the upstream timestamp of unchanged items.
+     */
+    public LocalDateTime updated(int row) {
+        return LocalDateTime.ofEpochSecond(updated[row], 0, ZoneOffset.UTC);
+    }
+
+    public int price(GameMode mode, int row) {
+        return prices[mode.ordinal()][row];
+    }
+
+    public int basePrice(GameMode mode, int row) {
+        return basePrices[mode.ordinal()][row];
+    }
+
+    public int avg24hPrice(GameMode mode, int row) {
+        return avg24hPrices[mode.ordinal()][row];
+    }
+
+    public int avg7daysPrice(GameMode mode, int row) {
+        return avg7daysPrices[mode.ordinal()][row];
+    }
+
+    public int traderPrice(GameMode mode, int row) {
+        return traderPrices[mode.ordinal()][row];
+    }
+
+    public int traderPriceRouble(GameMode mode, int row) {
+        return traderPricesRouble[mode.ordinal()][row];
+    }
+
+    public float diff24h(GameMode mode, int row) {
+        return diffs24h[mode.ordinal()][row];
+    }
+
+    public float diff7days(GameMode mode, int row) {
+        return diffs7days[mode.ordinal()][row];
+    }
+
+    public String traderName(GameMode mode, int row) {
+        return traderNameDictionary.decode(traderNames[mode.ordinal()][row]);
+    }
+
+    public String traderPriceCurrency(GameMode mode, int row) {
+        return currencyDictionary.decode(traderCurrencies[mode.ordinal()][row]);
+    }
+
+    /**
+     * @return ids of the tags of the item, sorted ascending
+     */
+    public int[] tagIds(int row) {
+        return tagIds[row].clone();
+    }
+
+    /**
+     * Maps the few distinct values of a low cardinality column to short codes.
+     */
+    private static final class Dictionary {
+
+        private final Map<String, Short> codes = new HashMap<>();
+
+        private final List<String> values = new ArrayList<>();
+
+        short encode(String value) {
+            return codes.computeIfAbsent(value, _ -> {
+                if (values.size() > Short.MAX_VALUE) {
+                    throw new IllegalStateException("Too many distinct values for dictionary encoding");
+                }
+                values.add(value);
+                return (short) (values.size() - 1);
+            });
+        }
+
+        String decode(short code) {
+            return values.get(code);
+        }
+
+    }
+
+}
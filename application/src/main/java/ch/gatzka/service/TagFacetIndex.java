@@ -0,0 +1,109 @@
+package ch.gatzka.service;
+
+import ch.gatzka.repository.ItemTagRepository;
+import ch.gatzka.repository.view.TagViewRepository;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+import java.util.*;
+
+/**
+ * In-memory index from every tag to the bitmap of the ids of its items. Tag filters and facet counts are answered by
+ * bitmap operations without touching the database. The index is rebuilt after each sync cycle and swapped atomically.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class TagFacetIndex {
+
+    private static final BitSet EMPTY = new BitSet();
+
+    private final TagViewRepository tagViewRepository;
+
+    private final ItemTagRepository itemTagRepository;
+
+    private volatile Snapshot snapshot = new Snapshot(List.of(), Map.of(), new BitSet());
+
+    @PostConstruct
+    public void rebuild() {
+        long startTime = System.currentTimeMillis();
+
+        Map<Integer, BitSet> itemsByTagId = new HashMap<>();
+        BitSet allItems = new BitSet();
+        itemTagRepository.readTagIdsByItemId().forEach((itemId, tagIds) -> {
+            allItems.set(itemId);
+            tagIds.forEach(tagId -> itemsByTagId.computeIfAbsent(tagId, _ -> new BitSet()).set(itemId));
+        });
+
+        List<Tag> tags = tagViewRepository.readAll().stream()
+                .filter(tag -> itemsByTagId.containsKey(tag.getTagId()))
+                .map(tag -> new Tag(tag.getTagId(), tag.getCleanName()))
+                .sorted(Comparator.comparing(Tag::name))
+                .toList();
+
+        snapshot = new Snapshot(tags, itemsByTagId, allItems);
+        log.info("Tag facet index rebuilt with {} tags and {} items after {} ms", tags.size(), allItems.cardinality(), System.currentTimeMillis() - startTime);
+    }
+
+    /**
+     * @return all tags that are assigned to at least one item, ordered by name
+     */
+    public List<Tag> getTags() {
+        return snapshot.tags();
+    }
+
+    /**
+     * @return ids of all items having at least one of the given tags
+     */
+    public BitSet matchAny(Collection<Tag> tags) {
+        Snapshot snapshot = this.snapshot;
+        BitSet result = new BitSet();
+        tags.forEach(tag -> result.or(snapshot.items(tag)));
+        return result;
+    }
+
+    /**
+     * @return ids of all items having all of the given tags, all items if no tag is given
+     */
+    public BitSet matchAll(Collection<Tag> tags) {
+        Snapshot snapshot = this.snapshot;
+        BitSet result = (BitSet) snapshot.allItems().clone();
+        tags.forEach(tag -> result.and(snapshot.items(tag)));
+        return result;
+    }
+
+    /**
+     * @param filter ids of the items to count, {@code null} to count all items
+     * @return number of items within the filter per tag
+     */
+    public Map<Tag, Integer> count(BitSet filter) {
+        Snapshot snapshot = this.snapshot;
+        Map<Tag, Integer> counts = new HashMap<>();
+        for (Tag tag : snapshot.tags()) {
+            BitSet items = snapshot.items(tag);
+            if (filter == null) {
+                counts.put(tag, items.cardinality());
+            } else {
+                BitSet intersection = (BitSet) items.clone();
+                intersection.and(filter);
+                counts.put(tag, intersection.cardinality());
+            }
+        }
+        return counts;
+    }
+
+    public record Tag(int id, String name) {
+
+    }
+
+    private record Snapshot(List<Tag> tags, Map<Integer, BitSet> itemsByTagId, BitSet allItems) {
+
+        BitSet items(Tag tag) {
+            return itemsByTagId.getOrDefault(tag.id(), EMPTY);
+        }
+
+    }
+
+}
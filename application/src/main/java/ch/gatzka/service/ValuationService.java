@@ -0,0 +1,112 @@
+package ch.gatzka.service;
+
+import ch.gatzka.enums.GameMode;
+import ch.gatzka.repository.view.ItemPriceViewRepository;
+import ch.gatzka.tables.records.ItemPriceViewRecord;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+
+/**
+ * Prices loot with the best sell value of each item, precomputed per game mode from {@code item_price_view}. The table
+ * is rebuilt after each sync cycle and swapped atomically, so pricing never touches the database.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class ValuationService {
+
+    private static final GameMode[] MODES = GameMode.values();
+
+    private final ItemPriceViewRepository itemPriceViewRepository;
+
+    private volatile ValuationTable table = new ValuationTable(new int[MODES.length][0], new String[MODES.length][0], new SellChannel[MODES.length][0]);
+
+    @PostConstruct
+    public void rebuild() {
+        long startTime = System.currentTimeMillis();
+
+        List<ItemPriceViewRecord> prices = itemPriceViewRepository.readAll();
+        int size = prices.stream().mapToInt(ItemPriceViewRecord::getItemId).max().orElse(-1) + 1;
+
+        int[][] values = new int[MODES.length][size];
+        String[][] currencies = new String[MODES.length][size];
+        SellChannel[][] channels = new SellChannel[MODES.length][size];
+        for (ItemPriceViewRecord price : prices) {
+            int itemId = price.getItemId();
+            set(values, currencies, channels, GameMode.PvE, itemId, price.getPveFleaValue(), price.getPveTraderValue(), price.getPveTraderValueCurrency());
+            set(values, currencies, channels, GameMode.PvP, itemId, price.getPvpFleaValue(), price.getPvpTraderValue(), price.getPvpTraderValueCurrency());
+        }
+
+        table = new ValuationTable(values, currencies, channels);
+        log.info("Valuation table rebuilt with {} items after {} ms", prices.size(), System.currentTimeMillis() - startTime);
+    }
+
+    private static void set(int[][] values, String[][] currencies, SellChannel[][] channels, GameMode mode, int itemId, int fleaValue, int traderValue, String traderCurrency) {
+        int column = mode.ordinal();
+        if (fleaValue > traderValue) {
+            values[column][itemId] = fleaValue;
+            currencies[column][itemId] = "₽";
+            channels[column][itemId] = SellChannel.FLEA;
+        } else {
+            values[column][itemId] = traderValue;
+            currencies[column][itemId] = traderCurrency.intern();
+            channels[column][itemId] = SellChannel.TRADER;
+        }
+    }
+
+    /**
+     * @return value of the given number of items sold at the best channel
+     * @throws IllegalArgumentException if there are no prices for the item
+     */
+    public Valuation valueOf(GameMode mode, int itemId, int count) {
+        return table.valueOf(mode.ordinal(), itemId, count);
+    }
+
+    /**
+     * Values a batch of loot against a single snapshot of the prices.
+     *
+     * @param itemIds ids of the items
+     * @param counts  number of items, at the same index as their id
+     * @return value of each item and count, at the same index as its id
+     */
+    public Valuation[] valueOf(GameMode mode, int[] itemIds, int[] counts) {
+        if (itemIds.length != counts.length) {
+            throw new IllegalArgumentException("Item ids and counts differ in length");
+        }
+
+        ValuationTable table = this.table;
+        Valuation[] valuations = new Valuation[itemIds.length];
+        for (int i = 0; i < itemIds.length; i++) {
+            valuations[i] = table.valueOf(mode.ordinal(), itemIds[i], counts[i]);
+        }
+        return valuations;
+    }
+
+    public enum SellChannel {
+        FLEA, TRADER
+    }
+
+    public record Valuation(int value, String currency, SellChannel channel) {
+
+        public String getDisplayValue() {
+            return currency + " " + value;
+        }
+
+    }
+
+    private record ValuationTable(int[][] values, String[][] currencies, SellChannel[][] channels) {
+
+        Valuation valueOf(int column, int itemId, int count) {
+            if (itemId < 0 || itemId >= channels[column].length || channels[column][itemId] == null) {
+                throw new IllegalArgumentException("Item prices not found");
+            }
+            return new Valuation(values[column][itemId] * count, currencies[column][itemId], channels[column][itemId]);
+        }
+
+    }
+
+}
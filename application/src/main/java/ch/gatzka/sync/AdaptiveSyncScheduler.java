@@ -0,0 +1,120 @@
+package ch.gatzka.sync;
+
+import jakarta.annotation.PostConstruct;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.List;
+
+/**
+ * Schedules sync cycles with an interval that follows the observed upstream change rate. Cycles that change many items
+ * shrink the interval, cycles that change (almost) nothing stretch it, always within the configured bounds.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class AdaptiveSyncScheduler {
+
+    private static final int HISTORY_SIZE = 50;
+
+    private final TaskScheduler taskScheduler;
+
+    @Value("${sync.interval.initial:10m}")
+    private Duration initialInterval;
+
+    @Value("${sync.interval.min:2m}")
+    private Duration minInterval;
+
+    @Value("${sync.interval.max:30m}")
+    private Duration maxInterval;
+
+    @Value("${sync.interval.shrink-threshold:50}")
+    private int shrinkThreshold;
+
+    @Value("${sync.interval.stretch-threshold:5}")
+    private int stretchThreshold;
+
+    @Getter
+    private volatile Duration interval;
+
+    @Getter
+    private volatile Instant nextRun;
+
+    private final Deque<Decision> decisions = new ArrayDeque<>();
+
+    @PostConstruct
+    public void init() {
+        interval = clamp(initialInterval);
+    }
+
+    /**
+     * Runs the given cycle repeatedly, each time after the interval current at the end of the previous run.
+     */
+    public void start(Runnable cycle) {
+        nextRun = Instant.now().plus(interval);
+        taskScheduler.schedule(() -> {
+            try {
+                cycle.run();
+            } finally {
+                start(cycle);
+            }
+        }, nextRun);
+    }
+
+    /**
+     * Adjusts the interval to the number of items the last cycle changed.
+     */
+    public synchronized void record(ItemSyncResult result) {
+        Duration previousInterval = interval;
+        int changedCount = result.changedCount();
+
+        Duration newInterval;
+        if (changedCount >= shrinkThreshold) {
+            newInterval = clamp(previousInterval.dividedBy(2));
+        } else if (changedCount <= stretchThreshold) {
+            newInterval = clamp(previousInterval.multipliedBy(3).dividedBy(2));
+        } else {
+            newInterval = previousInterval;
+        }
+        interval = newInterval;
+
+        if (decisions.size() == HISTORY_SIZE) {
+            decisions.removeLast();
+        }
+        decisions.addFirst(new Decision(Instant.now(), result.insertedCount(), result.updatedCount(), previousInterval, newInterval));
+
+        if (!newInterval.equals(previousInterval)) {
+            log.info("Sync interval changed from {} to {} after {} changed items", previousInterval, newInterval, changedCount);
+        }
+    }
+
+    /**
+     * @return the most recent decisions, newest first
+     */
+    public synchronized List<Decision> getDecisions() {
+        return List.copyOf(decisions);
+    }
+
+    private Duration clamp(Duration duration) {
+        if (duration.compareTo(minInterval) < 0) {
+            return minInterval;
+        }
+        if (duration.compareTo(maxInterval) > 0) {
+            return maxInterval;
+        }
+        return duration;
+    }
+
+    public record Decision(Instant decidedAt, int insertedCount, int updatedCount, Duration previousInterval, Duration interval) {
+
+    }
+
+}
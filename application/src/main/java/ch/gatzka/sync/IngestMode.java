@@ -0,0 +1,18 @@
+package ch.gatzka.sync;
+
+/**
+ * How the merged item catalog is written to the database.
+ */
+public enum IngestMode {
+
+    /**
+     * Chunked multi-row upserts.
+     */
+    BATCH,
+
+    /**
+     * {@code COPY} into an unlogged staging table followed by a single merge into the live table.
+     */
+    COPY
+
+}
@@ -0,0 +1,48 @@
+package ch.gatzka.sync;
+
+import ch.gatzka.tables.records.ItemRecord;
+import org.jooq.Field;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Collection;
+import java.util.List;
+
+import static ch.gatzka.Tables.ITEM;
+
+/**
+ * Stable content hash of an item as delivered by the upstream sources. The database id, the upstream update timestamp
+ * and the fingerprint itself are excluded, so only real changes of the merged PvE/PvP fields or the tags change it.
+ * <p>
+ * As unchanged rows are skipped, {@code item.updated} only moves together with the content. It holds the upstream
+ * timestamp of the last content change, not of the last sync.
+ */
+public final class ItemFingerprint {
+
+    private static final List<Field<?>> EXCLUDED_FIELDS = List.of(ITEM.ID, ITEM.UPDATED, ITEM.FINGERPRINT);
+
+    private static final char SEPARATOR = '\u001F';
+
+    private ItemFingerprint() {
+    }
+
+    public static long of(ItemRecord item, Collection<String> tags) {
+        StringBuilder content = new StringBuilder();
+        for (Field<?> field : ITEM.fields()) {
+            if (!EXCLUDED_FIELDS.contains(field)) {
+                content.append(item.get(field)).append(SEPARATOR);
+            }
+        }
+        tags.stream().sorted().forEach(tag -> content.append(tag).append(SEPARATOR));
+
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(content.toString().getBytes(StandardCharsets.UTF_8));
+            return ByteBuffer.wrap(hash).getLong();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+}
@@ -0,0 +1,250 @@
+package ch.gatzka.sync;
+
+import ch.gatzka.repository.ItemRepository;
+import ch.gatzka.sync.MarketDataClient.CachedPayload;
+import ch.gatzka.tables.records.ItemRecord;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.jooq.DSLContext;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+/**
+ * Writes the tarkov-market item catalog as a pipeline of parse, diff and write stages connected by bounded pipes.
+ * Database writes start as soon as the first changed items leave the diff stage, while the PvP payload is still being
+ * parsed.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class ItemSyncPipeline {
+
+    private static final int PIPE_CAPACITY = 1000;
+
+    private static final String PARSED_PIPE = "parsed";
+
+    private static final String CHANGED_PIPE = "changed";
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private final DSLContext dslContext;
+
+    private final ItemRepository itemRepository;
+
+    private final TagSynchronizer tagSynchronizer;
+
+    private final PriceHistoryWriter priceHistoryWriter;
+
+    private final SyncMetrics syncMetrics;
+
+    @Value("${sync.ingest-mode:batch}")
+    private IngestMode ingestMode;
+
+    private final List<PipelineStage> stages = List.of(new PipelineStage("parse"), new PipelineStage("diff"), new PipelineStage("write"));
+
+    private volatile List<Pipe<?>> pipes = List.of();
+
+    @PostConstruct
+    public void init() {
+        List.of(PARSED_PIPE, CHANGED_PIPE).forEach(pipe -> syncMetrics.queueDepth(pipe, () -> getQueueDepths().getOrDefault(pipe, 0)));
+        stages.forEach(syncMetrics::stage);
+    }
+
+    @PreDestroy
+    public void cleanUp() {
+        stages.forEach(PipelineStage::shutdown);
+    }
+
+    /**
+     * @return current number of elements waiting in each pipe of the running cycle
+     */
+    public Map<String, Integer> getQueueDepths() {
+        Map<String, Integer> queueDepths = new LinkedHashMap<>();
+        pipes.forEach(pipe -> queueDepths.put(pipe.getName(), pipe.size()));
+        return queueDepths;
+    }
+
+    public ItemSyncResult run(CachedPayload pvePayload, CachedPayload pvpPayload) {
+        PipelineStage parseStage = stages.get(0);
+        PipelineStage diffStage = stages.get(1);
+        PipelineStage writeStage = stages.get(2);
+
+        Pipe<MarketItem> parsedItems = new Pipe<>(PARSED_PIPE, PIPE_CAPACITY);
+        Pipe<ItemRecord> changedItems = new Pipe<>(CHANGED_PIPE, PIPE_CAPACITY);
+        pipes = List.of(parsedItems, changedItems);
+
+        CompletableFuture<Map<String, MarketItem>> pveFuture = new CompletableFuture<>();
+        Map<String, List<String>> tags = new ConcurrentHashMap<>();
+        AtomicInteger unchangedCount = new AtomicInteger();
+
+        CompletableFuture<Void> parse = parseStage.submit(() -> syncMetrics.time("parse", () -> {
+            Map<String, MarketItem> pveItems = new HashMap<>();
+            readItems(pvePayload, pveItem -> {
+                pveItems.put(pveItem.uid(), pveItem);
+                parseStage.processed();
+            });
+            int pveCount = pveItems.size();
+            pveFuture.complete(pveItems);
+
+            readItems(pvpPayload, pvpItem -> {
+                parsedItems.put(pvpItem);
+                parseStage.processed();
+            });
+            parsedItems.close();
+            syncMetrics.processed("parse", pveCount + parsedItems.transferred());
+            return null;
+        }));
+
+        CompletableFuture<Void> diff = diffStage.submit(() -> {
+            Map<String, MarketItem> pveItems = pveFuture.join();
+            Map<String, Long> fingerprints = itemRepository.readFingerprintsByTarkovId();
+            Set<String> seen = new HashSet<>();
+
+            for (MarketItem pvpItem : parsedItems) {
+                diffStage.processed();
+                MarketItem pveItem = pveItems.remove(pvpItem.uid());
+                if (pveItem == null) {
+                    log.debug("Skipping item {} without PvE data", pvpItem.uid());
+                    continue;
+                }
+                if (!seen.add(pveItem.bsgId())) {
+                    log.debug("Skipping duplicate item {}", pveItem.bsgId());
+                    continue;
+                }
+
+                ItemRecord item = toItemRecord(pveItem, pvpItem);
+                List<String> itemTags = List.of(pveItem.tags());
+                long fingerprint = ItemFingerprint.of(item, itemTags);
+                if (Objects.equals(fingerprints.get(pveItem.bsgId()), fingerprint)) {
+                    unchangedCount.incrementAndGet();
+                    continue;
+                }
+
+                tags.put(pveItem.bsgId(), itemTags);
+                changedItems.put(item.setFingerprint(fingerprint));
+            }
+            changedItems.close();
+
+            if (!pveItems.isEmpty()) {
+                log.debug("Skipped {} items without PvP data", pveItems.size());
+            }
+            return null;
+        });
+
+        CompletableFuture<List<ItemRepository.UpsertedItem>> write = writeStage.submit(() -> {
+            // the fingerprints cover the tags, so they must not commit without them
+            List<ItemRepository.UpsertedItem> upsertedItems = dslContext.transactionResult(_ -> {
+                List<ItemRepository.UpsertedItem> writtenItems = syncMetrics.time("item-write", () -> switch (ingestMode) {
+                    case BATCH -> itemRepository.upsertByTarkovId(changedItems);
+                    case COPY -> itemRepository.copyByTarkovId(changedItems);
+                });
+
+                Map<String, Integer> itemIds = itemRepository.readIdsByTarkovId();
+                Map<Integer, List<String>> tagsByItemId = new HashMap<>();
+                tags.forEach((tarkovId, names) -> tagsByItemId.put(itemIds.get(tarkovId), names));
+                syncMetrics.time("tag-write", () -> {
+                    tagSynchronizer.synchronize(tagsByItemId);
+                    return null;
+                });
+                syncMetrics.processed("tag-write", tagsByItemId.size());
+                return writtenItems;
+            });
+            syncMetrics.processed("item-write", upsertedItems.size());
+            priceHistoryWriter.write(upsertedItems.stream().map(ItemRepository.UpsertedItem::id).toList());
+
+            writeStage.processed(changedItems.transferred());
+            return upsertedItems;
+        });
+
+        List.of(parse, diff, write).forEach(stage -> stage.whenComplete((_, e) -> {
+            if (e != null) {
+                pveFuture.completeExceptionally(e);
+                parsedItems.fail(e);
+                changedItems.fail(e);
+            }
+        }));
+
+        CompletableFuture.allOf(parse, diff, write).join();
+        pipes = List.of();
+
+        List<ItemRepository.UpsertedItem> upsertedItems = write.join();
+        int insertedCount = (int) upsertedItems.stream().filter(ItemRepository.UpsertedItem::inserted).count();
+        return new ItemSyncResult(insertedCount, upsertedItems.size() - insertedCount, unchangedCount.get());
+    }
+
+    /**
+     * Streams the JSON array of the given payload and hands every element to the consumer as soon as it is parsed, so
+     * the payload is never held in memory as a whole.
+     */
+    private void readItems(CachedPayload payload, Consumer<MarketItem> consumer) {
+        try (JsonParser parser = objectMapper.createParser(payload.openStream())) {
+            if (parser.nextToken() != JsonToken.START_ARRAY) {
+                throw new IOException("Expected JSON array in " + payload.file());
+            }
+            while (parser.nextToken() == JsonToken.START_OBJECT) {
+                consumer.accept(objectMapper.readValue(parser, MarketItem.class));
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static ItemRecord toItemRecord(MarketItem pveData, MarketItem pvpData) {
+        Instant instant = pveData.updated().isEmpty() ? Instant.now() : Instant.parse(pveData.updated());
+        LocalDateTime updated = instant.atZone(ZoneId.systemDefault()).toLocalDateTime();
+
+        return new ItemRecord()
+                .setTarkovMarketId(pveData.uid())
+                .setName(pveData.name())
+                .setBannedOnFlea(pveData.bannedOnFlea())
+                .setHaveMarketData(pveData.haveMarketData())
+                .setShortName(pveData.shortName())
+                .setPvePrice(pveData.price())
+                .setPvpPrice(pvpData.price())
+                .setPveBasePrice(pveData.basePrice())
+                .setPvpBasePrice(pvpData.basePrice())
+                .setPveAvg24hPrice(pveData.avg24hPrice())
+                .setPvpAvg24hPrice(pvpData.avg24hPrice())
+                .setPveAvg7daysPrice(pveData.avg7daysPrice())
+                .setPvpAvg7daysPrice(pvpData.avg7daysPrice())
+                .setPveTraderName(pveData.traderName())
+                .setPvpTraderName(pvpData.traderName())
+                .setPveTraderPrice(pveData.traderPrice())
+                .setPvpTraderPrice(pvpData.traderPrice())
+                .setPveTraderPriceCurrency(pveData.traderPriceCur())
+                .setPvpTraderPriceCurrency(pvpData.traderPriceCur())
+                .setPveTraderPriceRouble(pveData.traderPriceRub())
+                .setPvpTraderPriceRouble(pvpData.traderPriceRub())
+                .setPveDiff24h(pveData.diff24h())
+                .setPvpDiff24h(pvpData.diff24h())
+                .setPveDiff7days(pveData.diff7days())
+                .setPvpDiff7days(pvpData.diff7days())
+                .setUpdated(updated)
+                .setSlots(pveData.slots())
+                .setIcon(pveData.icon())
+                .setLink(pveData.link())
+                .setWikiLink(pveData.wikiLink())
+                .setImageLink(pveData.img())
+                .setImageBigLink(pveData.imgBig())
+                .setTarkovId(pveData.bsgId())
+                .setIsFunctional(pveData.isFunctional())
+                .setReference(pveData.reference());
+    }
+
+}
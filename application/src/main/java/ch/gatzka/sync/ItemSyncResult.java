@@ -0,0 +1,17 @@
+package ch.gatzka.sync;
+
+/**
+ * Outcome of writing the item catalog in one sync cycle.
+ */
+public record ItemSyncResult(int insertedCount, int updatedCount, int unchangedCount) {
+
+    /**
+     * Result of a cycle whose item payloads were not modified upstream.
+     */
+    public static final ItemSyncResult NOT_MODIFIED = new ItemSyncResult(0, 0, 0);
+
+    public int changedCount() {
+        return insertedCount + updatedCount;
+    }
+
+}
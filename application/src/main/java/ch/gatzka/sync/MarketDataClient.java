@@ -0,0 +1,146 @@
+package ch.gatzka.sync;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.RestTemplate;
+
+import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Properties;
+import java.util.zip.GZIPInputStream;
+
+import static java.nio.file.StandardCopyOption.ATOMIC_MOVE;
+import static java.nio.file.StandardCopyOption.REPLACE_EXISTING;
+
+/**
+ * Downloads upstream payloads with gzip compression and conditional requests. The last complete payload of every
+ * source is kept on disk together with its validators, so an unchanged source costs a single {@code 304} round trip.
+ */
+@Slf4j
+@Component
+public class MarketDataClient {
+
+    private static final String ETAG = "etag";
+
+    private static final String LAST_MODIFIED = "last-modified";
+
+    private static final String GZIP = "gzip";
+
+    private final RestTemplate restTemplate;
+
+    private final Path cacheDirectory;
+
+    public MarketDataClient(RestTemplate restTemplate, @Value("${sync.cache.directory:${java.io.tmpdir}/key-value-analyzer}") String cacheDirectory) {
+        this.restTemplate = restTemplate;
+        this.cacheDirectory = Path.of(cacheDirectory);
+    }
+
+    /**
+     * Fetches the given source. Unless {@code force} is set, the validators of the cached payload are sent along and a
+     * {@code 304} response is served from the cache.
+     *
+     * @param source name of the source, used as cache key
+     */
+    public CachedPayload fetch(String source, String url, boolean force, Object... uriVariables) {
+        Path payloadFile = cacheDirectory.resolve(source + ".json");
+        Path metadataFile = cacheDirectory.resolve(source + ".properties");
+        Properties metadata = force || !Files.exists(payloadFile) ? new Properties() : readMetadata(metadataFile);
+
+        return restTemplate.execute(url, HttpMethod.GET, request -> {
+            HttpHeaders headers = request.getHeaders();
+            headers.set(HttpHeaders.ACCEPT_ENCODING, GZIP);
+            if (metadata.containsKey(ETAG)) {
+                headers.setIfNoneMatch(metadata.getProperty(ETAG));
+            }
+            if (metadata.containsKey(LAST_MODIFIED)) {
+                headers.set(HttpHeaders.IF_MODIFIED_SINCE, metadata.getProperty(LAST_MODIFIED));
+            }
+        }, response -> {
+            if (response.getStatusCode().isSameCodeAs(HttpStatus.NOT_MODIFIED)) {
+                log.debug("Source {} not modified, using cached payload", source);
+                return new CachedPayload(payloadFile, Boolean.parseBoolean(metadata.getProperty(GZIP)), false, 0);
+            }
+
+            Files.createDirectories(cacheDirectory);
+            Path temporaryFile = Files.createTempFile(cacheDirectory, source, ".tmp");
+            Path temporaryMetadataFile = Files.createTempFile(cacheDirectory, source, ".tmp");
+            try {
+                long bytesTransferred;
+                try (InputStream body = response.getBody()) {
+                    bytesTransferred = Files.copy(body, temporaryFile, REPLACE_EXISTING);
+                }
+
+                HttpHeaders headers = response.getHeaders();
+                boolean gzip = GZIP.equalsIgnoreCase(headers.getFirst(HttpHeaders.CONTENT_ENCODING));
+
+                Properties newMetadata = new Properties();
+                newMetadata.setProperty(GZIP, Boolean.toString(gzip));
+                if (headers.getETag() != null) {
+                    newMetadata.setProperty(ETAG, headers.getETag());
+                }
+                if (headers.getFirst(HttpHeaders.LAST_MODIFIED) != null) {
+                    newMetadata.setProperty(LAST_MODIFIED, headers.getFirst(HttpHeaders.LAST_MODIFIED));
+                }
+                try (OutputStream outputStream = Files.newOutputStream(temporaryMetadataFile)) {
+                    newMetadata.store(outputStream, source);
+                }
+
+                // without validators the next fetch downloads the full payload, so a crash between the moves never
+                // pairs the old payload with the new validators or the other way round
+                Files.deleteIfExists(metadataFile);
+                Files.move(temporaryFile, payloadFile, REPLACE_EXISTING, ATOMIC_MOVE);
+                Files.move(temporaryMetadataFile, metadataFile, REPLACE_EXISTING, ATOMIC_MOVE);
+
+                return new CachedPayload(payloadFile, gzip, true, bytesTransferred);
+            } finally {
+                Files.deleteIfExists(temporaryFile);
+                Files.deleteIfExists(temporaryMetadataFile);
+            }
+        }, uriVariables);
+    }
+
+    /**
+     * Drops the validators of the given source, so the next fetch downloads the full payload again.
+     */
+    public void invalidate(String source) {
+        try {
+            Files.deleteIfExists(cacheDirectory.resolve(source + ".properties"));
+        } catch (IOException e) {
+            log.warn("Could not invalidate cache of source {}", source, e);
+        }
+    }
+
+    private Properties readMetadata(Path metadataFile) {
+        Properties metadata = new Properties();
+        if (Files.exists(metadataFile)) {
+            try (InputStream inputStream = Files.newInputStream(metadataFile)) {
+                metadata.load(inputStream);
+            } catch (IOException e) {
+                log.warn("Could not read cache metadata {}", metadataFile, e);
+                metadata.clear();
+            }
+        }
+        return metadata;
+    }
+
+    /**
+     * Payload of a source as stored in the cache.
+     *
+     * @param modified         whether the payload changed since the previous fetch
+     * @param bytesTransferred number of bytes received over the network
+     */
+    public record CachedPayload(Path file, boolean gzip, boolean modified, long bytesTransferred) {
+
+        public InputStream openStream() throws IOException {
+            InputStream inputStream = new BufferedInputStream(Files.newInputStream(file));
+            return gzip ? new GZIPInputStream(inputStream) : inputStream;
+        }
+
+    }
+
+}
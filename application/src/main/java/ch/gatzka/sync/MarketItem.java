@@ -0,0 +1,10 @@
+package ch.gatzka.sync;
+
+/**
+ * Single element of the tarkov-market {@code /items/all} payload.
+ */
+public record MarketItem(String uid, String name, Boolean bannedOnFlea, Boolean haveMarketData, String shortName, Integer price, Integer basePrice, Integer avg24hPrice, Integer avg7daysPrice, String traderName, Integer traderPrice,
+                         String traderPriceCur, Integer traderPriceRub, String updated, Integer slots, String icon, String link, String wikiLink, String img, String imgBig, String bsgId, String[] tags, Double diff24h, Double diff7days,
+                         Boolean isFunctional, String reference) {
+
+}
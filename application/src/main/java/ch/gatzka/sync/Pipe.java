@@ -0,0 +1,121 @@
+package ch.gatzka.sync;
+
+import lombok.Getter;
+
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Bounded hand-off queue between two pipeline stages. Producers block while the pipe is full, which keeps memory flat
+ * when a downstream stage is slower. Consumers iterate over the pipe until it is closed. A failed pipe makes both sides
+ * throw instead of waiting forever.
+ */
+public class Pipe<T> implements Iterable<T> {
+
+    private static final Object END = new Object();
+
+    private static final long POLL_INTERVAL_MILLIS = 100;
+
+    @Getter
+    private final String name;
+
+    @Getter
+    private final int capacity;
+
+    private final BlockingQueue<Object> queue;
+
+    private final LongAdder transferred = new LongAdder();
+
+    private volatile Throwable failure;
+
+    public Pipe(String name, int capacity) {
+        this.name = name;
+        this.capacity = capacity;
+        this.queue = new ArrayBlockingQueue<>(capacity + 1);
+    }
+
+    public void put(T element) {
+        offer(element);
+        transferred.increment();
+    }
+
+    public void close() {
+        offer(END);
+    }
+
+    public void fail(Throwable cause) {
+        failure = cause;
+    }
+
+    public int size() {
+        return queue.size();
+    }
+
+    public long transferred() {
+        return transferred.sum();
+    }
+
+    @Override
+    public Iterator<T> iterator() {
+        return new Iterator<>() {
+
+            private Object next;
+
+            @Override
+            public boolean hasNext() {
+                if (next == null) {
+                    next = take();
+                }
+                return next != END;
+            }
+
+            @Override
+            @SuppressWarnings("unchecked")
+            public T next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                T element = (T) next;
+                next = null;
+                return element;
+            }
+
+        };
+    }
+
+    private void offer(Object element) {
+        try {
+            while (!queue.offer(element, POLL_INTERVAL_MILLIS, TimeUnit.MILLISECONDS)) {
+                checkFailure();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while writing to pipe " + name, e);
+        }
+    }
+
+    private Object take() {
+        try {
+            Object element;
+            do {
+                checkFailure();
+                element = queue.poll(POLL_INTERVAL_MILLIS, TimeUnit.MILLISECONDS);
+            } while (element == null);
+            return element;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while reading from pipe " + name, e);
+        }
+    }
+
+    private void checkFailure() {
+        if (failure != null) {
+            throw new IllegalStateException("Pipe " + name + " was aborted", failure);
+        }
+    }
+
+}
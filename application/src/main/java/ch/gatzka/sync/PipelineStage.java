@@ -0,0 +1,69 @@
+package ch.gatzka.sync;
+
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Stage of the item sync pipeline running on its own single threaded executor and keeping track of its throughput.
+ */
+@Slf4j
+public class PipelineStage {
+
+    @Getter
+    private final String name;
+
+    private final ExecutorService executor;
+
+    private final LongAdder processed = new LongAdder();
+
+    @Getter
+    private volatile long lastProcessed;
+
+    @Getter
+    private volatile long lastDurationMillis;
+
+    public PipelineStage(String name) {
+        this.name = name;
+        this.executor = Executors.newSingleThreadExecutor(Thread.ofPlatform().name("sync-" + name).factory());
+    }
+
+    public <T> CompletableFuture<T> submit(Supplier<T> task) {
+        return CompletableFuture.supplyAsync(() -> {
+            processed.reset();
+            long startTime = System.currentTimeMillis();
+            try {
+                return task.get();
+            } finally {
+                lastProcessed = processed.sum();
+                lastDurationMillis = System.currentTimeMillis() - startTime;
+                log.info("Stage {} processed {} items after {} ms ({} items/s)", name, lastProcessed, lastDurationMillis, String.format("%.1f", getThroughput()));
+            }
+        }, executor);
+    }
+
+    public void processed() {
+        processed.increment();
+    }
+
+    public void processed(long count) {
+        processed.add(count);
+    }
+
+    /**
+     * @return items per second of the last run
+     */
+    public double getThroughput() {
+        return lastDurationMillis == 0 ? 0 : lastProcessed * 1000d / lastDurationMillis;
+    }
+
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+}
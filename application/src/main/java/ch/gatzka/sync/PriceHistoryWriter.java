@@ -0,0 +1,39 @@
+package ch.gatzka.sync;
+
+import ch.gatzka.repository.ItemPriceHistoryRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.Collection;
+
+/**
+ * Appends the prices of changed items to the monthly partitioned price history and drops partitions that fell out of
+ * the retention window.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class PriceHistoryWriter {
+
+    private final ItemPriceHistoryRepository itemPriceHistoryRepository;
+
+    @Value("${sync.price-history.retention-months:24}")
+    private int retentionMonths;
+
+    public void write(Collection<Integer> itemIds) {
+        LocalDateTime now = LocalDateTime.now();
+        YearMonth month = YearMonth.from(now);
+
+        itemPriceHistoryRepository.createPartition(month);
+        itemPriceHistoryRepository.createPartition(month.plusMonths(1));
+
+        int recordedCount = itemPriceHistoryRepository.recordChanges(itemIds, now);
+        int droppedCount = itemPriceHistoryRepository.dropPartitionsBefore(month.minusMonths(retentionMonths));
+        log.info("Price history updated. {} prices recorded, {} partitions dropped", recordedCount, droppedCount);
+    }
+
+}
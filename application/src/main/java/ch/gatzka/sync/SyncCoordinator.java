@@ -0,0 +1,81 @@
+package ch.gatzka.sync;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.jooq.DSLContext;
+import org.jooq.Field;
+import org.jooq.impl.DSL;
+import org.jooq.impl.SQLDataType;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Makes sure that only one sync cycle runs at a time. Within the JVM, triggers that arrive while a cycle is running
+ * join that cycle instead of starting another one. Across replicas, a PostgreSQL advisory lock elects the node that
+ * runs the cycle, all other nodes skip it.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class SyncCoordinator {
+
+    private static final long ADVISORY_LOCK_KEY = 0x6B76_615F_7379_6E63L;
+
+    private static final Field<Boolean> TRY_LOCK = DSL.field("pg_try_advisory_lock({0})", SQLDataType.BOOLEAN, DSL.val(ADVISORY_LOCK_KEY));
+
+    private static final Field<Boolean> UNLOCK = DSL.field("pg_advisory_unlock({0})", SQLDataType.BOOLEAN, DSL.val(ADVISORY_LOCK_KEY));
+
+    private final DSLContext dslContext;
+
+    private final AtomicReference<CompletableFuture<Boolean>> running = new AtomicReference<>();
+
+    /**
+     * Runs the given cycle on the calling thread, unless a cycle is already running in this JVM.
+     *
+     * @param trigger name of what requested the cycle, used for logging
+     * @return future completing with {@code true} if the cycle ran and {@code false} if another node holds the lock
+     */
+    public CompletableFuture<Boolean> run(String trigger, Runnable cycle) {
+        CompletableFuture<Boolean> future = new CompletableFuture<>();
+        CompletableFuture<Boolean> existing = running.compareAndExchange(null, future);
+        if (existing != null) {
+            log.info("Sync triggered by {} joins the running cycle", trigger);
+            return existing;
+        }
+
+        try {
+            future.complete(runLocked(trigger, cycle));
+        } catch (Throwable e) {
+            future.completeExceptionally(e);
+        } finally {
+            running.set(null);
+        }
+        return future;
+    }
+
+    public boolean isRunning() {
+        return running.get() != null;
+    }
+
+    private boolean runLocked(String trigger, Runnable cycle) {
+        return dslContext.connectionResult(connection -> {
+            DSLContext session = DSL.using(connection, dslContext.dialect());
+
+            if (!Boolean.TRUE.equals(session.select(TRY_LOCK).fetchSingle().value1())) {
+                log.info("Sync triggered by {} skipped, another node holds the sync lock", trigger);
+                return false;
+            }
+
+            try {
+                log.debug("Sync triggered by {} acquired the sync lock", trigger);
+                cycle.run();
+                return true;
+            } finally {
+                session.select(UNLOCK).fetchSingle();
+            }
+        });
+    }
+
+}
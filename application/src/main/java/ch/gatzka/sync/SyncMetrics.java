@@ -0,0 +1,122 @@
+package ch.gatzka.sync;
+
+import io.micrometer.core.instrument.*;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Publishes timers, counters and gauges of the sync cycle through Micrometer, so they are available under
+ * {@code /actuator/metrics} and {@code /actuator/prometheus}.
+ */
+@Component
+public class SyncMetrics {
+
+    private static final String PHASE_TIMER = "sync.phase";
+
+    private final MeterRegistry meterRegistry;
+
+    private final Map<String, AtomicLong> payloadSizes = new ConcurrentHashMap<>();
+
+    private final AtomicLong insertedCount = new AtomicLong();
+
+    private final AtomicLong updatedCount = new AtomicLong();
+
+    private final AtomicLong unchangedCount = new AtomicLong();
+
+    private volatile Instant lastSuccess;
+
+    public SyncMetrics(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+
+        Gauge.builder("sync.items", insertedCount, AtomicLong::get).tag("result", "inserted").description("Items inserted by the last cycle").register(meterRegistry);
+        Gauge.builder("sync.items", updatedCount, AtomicLong::get).tag("result", "updated").description("Items updated by the last cycle").register(meterRegistry);
+        Gauge.builder("sync.items", unchangedCount, AtomicLong::get).tag("result", "unchanged").description("Items left unchanged by the last cycle").register(meterRegistry);
+        TimeGauge.builder("sync.last.success.age", this, TimeUnit.SECONDS, SyncMetrics::secondsSinceLastSuccess).description("Time since the last successful cycle").register(meterRegistry);
+    }
+
+    /**
+     * Runs the given phase and records its duration, tagged with whether it failed.
+     */
+    public <T> T time(String phase, Supplier<T> task) {
+        long startTime = System.nanoTime();
+        String outcome = "failure";
+        try {
+            T result = task.get();
+            outcome = "success";
+            return result;
+        } finally {
+            record(phase, outcome, startTime);
+        }
+    }
+
+    /**
+     * Starts the given asynchronous phase and records its duration once the returned future completes.
+     */
+    public <T> CompletableFuture<T> timeAsync(String phase, Supplier<CompletableFuture<T>> task) {
+        long startTime = System.nanoTime();
+        return task.get().whenComplete((_, e) -> record(phase, e == null ? "success" : "failure", startTime));
+    }
+
+    private void record(String phase, String outcome, long startTime) {
+        Timer.builder(PHASE_TIMER).tag("phase", phase).tag("outcome", outcome).description("Duration of a sync phase").register(meterRegistry).record(Duration.ofNanos(System.nanoTime() - startTime));
+    }
+
+    /**
+     * Counts the elements a phase processed.
+     */
+    public void processed(String phase, long count) {
+        Counter.builder("sync.phase.processed").tag("phase", phase).description("Elements processed by a sync phase").register(meterRegistry).increment(count);
+    }
+
+    public void payload(String source, MarketDataClient.CachedPayload payload) {
+        payloadSizes.computeIfAbsent(source, _ -> {
+            AtomicLong size = new AtomicLong();
+            Gauge.builder("sync.payload.size", size, AtomicLong::get).tag("source", source).baseUnit("bytes").description("Size of the cached payload").register(meterRegistry);
+            return size;
+        }).set(payload.file().toFile().length());
+        Counter.builder("sync.payload.transferred").tag("source", source).baseUnit("bytes").description("Bytes received from upstream").register(meterRegistry).increment(payload.bytesTransferred());
+        Counter.builder("sync.payload.requests").tag("source", source).tag("cache", payload.modified() ? "miss" : "hit").description("Upstream payload requests").register(meterRegistry).increment();
+    }
+
+    /**
+     * Registers a gauge following the queue depth of a pipe of the item sync pipeline.
+     */
+    public void queueDepth(String pipe, Supplier<Number> depth) {
+        Gauge.builder("sync.pipeline.queue.depth", depth).tag("pipe", pipe).description("Elements waiting in a pipe of the item sync pipeline").register(meterRegistry);
+    }
+
+    /**
+     * Registers gauges following the throughput of the last run of a stage of the item sync pipeline.
+     */
+    public void stage(PipelineStage stage) {
+        Gauge.builder("sync.pipeline.stage.throughput", stage, PipelineStage::getThroughput).tag("stage", stage.getName()).baseUnit("items/s").description("Items per second processed by the last run of a pipeline stage").register(meterRegistry);
+        Gauge.builder("sync.pipeline.stage.processed", stage, PipelineStage::getLastProcessed).tag("stage", stage.getName()).description("Items processed by the last run of a pipeline stage").register(meterRegistry);
+        TimeGauge.builder("sync.pipeline.stage.duration", stage, TimeUnit.MILLISECONDS, PipelineStage::getLastDurationMillis).tag("stage", stage.getName()).description("Duration of the last run of a pipeline stage").register(meterRegistry);
+    }
+
+    public void succeeded(ItemSyncResult result) {
+        insertedCount.set(result.insertedCount());
+        updatedCount.set(result.updatedCount());
+        unchangedCount.set(result.unchangedCount());
+        lastSuccess = Instant.now();
+        meterRegistry.counter("sync.cycles", "outcome", "success").increment();
+    }
+
+    public void failed() {
+        meterRegistry.counter("sync.cycles", "outcome", "failure").increment();
+    }
+
+    private double secondsSinceLastSuccess() {
+        Instant lastSuccess = this.lastSuccess;
+        return lastSuccess == null ? Double.NaN : Duration.between(lastSuccess, Instant.now()).toMillis() / 1000d;
+    }
+
+}
@@ -0,0 +1,60 @@
+package ch.gatzka.sync;
+
+import ch.gatzka.repository.ItemTagRepository;
+import ch.gatzka.repository.TagRepository;
+import ch.gatzka.tables.records.ItemTagRecord;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class TagSynchronizer {
+
+    private final TagRepository tagRepository;
+
+    private final ItemTagRepository itemTagRepository;
+
+    /**
+     * Brings the tags of the given items in line with the database. Missing tags are created in one statement and
+     * only the item tag pairs that were added or removed are written, so unchanged items cause no writes at all.
+     *
+     * @param tagsByItemId the complete tag names of every item to synchronise, keyed by item id
+     */
+    public void synchronize(Map<Integer, ? extends Collection<String>> tagsByItemId) {
+        if (tagsByItemId.isEmpty()) {
+            return;
+        }
+
+        Map<String, Integer> tagIds = tagRepository.readIdsByName();
+
+        Set<String> missingTags = new HashSet<>();
+        tagsByItemId.values().forEach(names -> names.stream().filter(name -> !tagIds.containsKey(name)).forEach(missingTags::add));
+        if (!missingTags.isEmpty()) {
+            tagRepository.insertAll(missingTags);
+            tagIds.putAll(tagRepository.readIdsByName());
+        }
+
+        Map<Integer, List<Integer>> currentTagIds = itemTagRepository.readTagIdsByItemId();
+
+        List<ItemTagRecord> added = new ArrayList<>();
+        List<ItemTagRecord> removed = new ArrayList<>();
+        tagsByItemId.forEach((itemId, names) -> {
+            Set<Integer> current = new HashSet<>(currentTagIds.getOrDefault(itemId, List.of()));
+            Set<Integer> wanted = new HashSet<>();
+            names.forEach(name -> wanted.add(tagIds.get(name)));
+
+            wanted.stream().filter(tagId -> !current.contains(tagId)).forEach(tagId -> added.add(new ItemTagRecord(itemId, tagId)));
+            current.stream().filter(tagId -> !wanted.contains(tagId)).forEach(tagId -> removed.add(new ItemTagRecord(itemId, tagId)));
+        });
+
+        itemTagRepository.deleteAll(removed);
+        itemTagRepository.insertAll(added);
+
+        log.info("Tag update finished. {} tags created, {} item tags added, {} item tags removed", missingTags.size(), added.size(), removed.size());
+    }
+
+}
@@ -1,11 +1,9 @@
 package ch.gatzka.view;
 
-import ch.gatzka.repository.ItemRepository;
-import ch.gatzka.repository.KeyReportRepository;
-import ch.gatzka.repository.KeyRepository;
-import ch.gatzka.tables.records.ItemRecord;
-import ch.gatzka.tables.records.KeyReportRecord;
-import ch.gatzka.tables.records.LootReportRecord;
+import ch.gatzka.repository.LootReportRepository;
+import ch.gatzka.repository.LootReportRepository.LootTotals;
+import ch.gatzka.service.CatalogItem;
+import ch.gatzka.service.ItemCatalog;
 import com.vaadin.flow.component.Unit;
 import com.vaadin.flow.component.combobox.ComboBox;
 import com.vaadin.flow.component.formlayout.FormLayout;
@@ -21,22 +19,12 @@
 import com.vaadin.flow.router.PageTitle;
 import com.vaadin.flow.router.Route;
 import com.vaadin.flow.server.auth.AnonymousAllowed;
-import lombok.AllArgsConstructor;
 import lombok.Getter;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.atmosphere.config.service.Get;
-import org.jooq.Result;
-import org.jooq.impl.DefaultDSLContext;
 import org.vaadin.lineawesome.LineAwesomeIconUrl;
 
-import java.util.ArrayList;
-import java.util.HashMap;
 import java.util.List;
-import java.util.Map;
-
-import static ch.gatzka.Tables.KEY_REPORT;
-import static ch.gatzka.Tables.LOOT_REPORT;
 
 
 @Slf4j
@@ -46,23 +34,19 @@
 @AnonymousAllowed
 public class ItemFinderView extends VerticalLayout {
 
-    private final List<ItemRecord> items;
-
-    private final ItemRepository itemRepository;
+    private final ItemCatalog.Snapshot catalog;
 
     private final FormLayout itemDetails = new FormLayout();
 
     private Grid<KeyReport> grid ;
 
-    private final DefaultDSLContext dslContext;
-    private final KeyRepository keyRepository;
-    private final KeyReportRepository keyReportRepository;
+    private static final int KEY_LIMIT = 10;
 
-    public ItemFinderView(ItemRepository itemRepository, DefaultDSLContext dslContext, KeyRepository keyRepository, KeyReportRepository keyReportRepository) {
+    private final LootReportRepository lootReportRepository;
 
-        this.itemRepository = itemRepository;
+    public ItemFinderView(ItemCatalog itemCatalog, LootReportRepository lootReportRepository) {
 
-        items = itemRepository.readAll();
+        catalog = itemCatalog.get();
 
         setSizeFull();
         createHeader();
@@ -71,17 +55,15 @@ public ItemFinderView(ItemRepository itemRepository, DefaultDSLContext dslContex
         add(itemDetails);
         add(grid);
 
-        this.dslContext = dslContext;
-        this.keyRepository = keyRepository;
-        this.keyReportRepository = keyReportRepository;
+        this.lootReportRepository = lootReportRepository;
     }
 
     private void createHeader() {
-        ComboBox<ItemRecord> selectItemBox = new ComboBox<>();
+        ComboBox<CatalogItem> selectItemBox = new ComboBox<>();
         selectItemBox.setAutofocus(true);
         selectItemBox.setLabel("Item");
-        selectItemBox.setItems(items);
-        selectItemBox.setItemLabelGenerator(ItemRecord::getName);
+        selectItemBox.setItems(catalog.items());
+        selectItemBox.setItemLabelGenerator(CatalogItem::getName);
         selectItemBox.setWidthFull();
 
         selectItemBox.addValueChangeListener(event -> showItemData(event.getValue()));
@@ -111,7 +93,7 @@ private void createGrid() {
         grid.addColumn("chance").setHeader("Chance").setRenderer(new TextRenderer<>(entry -> String.format("%.2f", entry.chance * 100) + "%" ));
     }
 
-    private void showItemData(ItemRecord selectedItem) {
+    private void showItemData(CatalogItem selectedItem) {
         itemDetails.removeAll();
 
         TextField nameField = new TextField("Name");
@@ -124,17 +106,15 @@ private void showItemData(ItemRecord selectedItem) {
         wikiLinkField.setReadOnly(true);
         itemDetails.add(wikiLinkField);
 
-        Result<LootReportRecord> lootReports = dslContext.selectFrom(LOOT_REPORT).where(LOOT_REPORT.ITEM_ID.eq(selectedItem.getId())).fetch();
+        LootTotals lootTotals = lootReportRepository.readTotalsByItemId(selectedItem.getId());
 
         IntegerField totalReports = new IntegerField("Total Reports");
-        totalReports.setValue(lootReports.size());
+        totalReports.setValue(lootTotals.reportCount());
         totalReports.setReadOnly(true);
         itemDetails.add(totalReports);
 
-        int totalItemsFound = lootReports.stream().mapToInt(LootReportRecord::getCount).sum();
-
         IntegerField totalItemsFoundField = new IntegerField("Total Items Found");
-        totalItemsFoundField.setValue(totalItemsFound);
+        totalItemsFoundField.setValue(lootTotals.itemCount());
         totalItemsFoundField.setReadOnly(true);
         itemDetails.add(totalItemsFoundField);
 
@@ -143,38 +123,11 @@ private void showItemData(ItemRecord selectedItem) {
         grid.setItems(relevantReports);
     }
 
-    private List<KeyReport> fetchRelevantKeyReports(ItemRecord selectedItem) {
-        Result<LootReportRecord> lootReports = dslContext.selectFrom(LOOT_REPORT).where(LOOT_REPORT.ITEM_ID.eq(selectedItem.getId())).fetch();
-
-        List<KeyReport> data = new ArrayList<>();
-        {
-            List<Integer> keyReportIds = lootReports.map(LootReportRecord::getKeyReportId);
-            Map<Integer, Integer> keys = new HashMap<>();
-            Map<Integer, KeyReportRecord> keyReports = keyReportRepository.read(KEY_REPORT.ID.in(keyReportIds)).intoMap(KEY_REPORT.ID, entry -> entry);
-
-            lootReports.forEach(lootReport -> {
-                KeyReportRecord keyReport = keyReports.get(lootReport.getKeyReportId());
-                keys.computeIfPresent(keyReport.getKeyId(), (k, v) -> v + lootReport.getCount());
-                keys.computeIfAbsent(keyReport.getKeyId(), k -> lootReport.getCount());
-            });
-
-            keys.forEach((keyId, count) -> {
-                keyRepository.findById(keyId).ifPresent(key -> {
-
-                    int totalKeyReports = keyReportRepository.findByKeyId(keyId).size();
-
-                    double chance = (double) count / totalKeyReports;
-
-                    itemRepository.findById(key.getItemId()).ifPresent(keyItem -> {
-                        data.add(new KeyReport(keyItem.getIcon(), keyItem.getName(), count, chance));
-                    });
-                });
-            });
-        }
-
-        data.sort((a, b) -> Double.compare(b.chance, a.chance));
-
-        return data.stream().filter(a -> a.chance < 1).limit(10).toList();
+    private List<KeyReport> fetchRelevantKeyReports(CatalogItem selectedItem) {
+        return lootReportRepository.readDropChancesByItemId(selectedItem.getId(), KEY_LIMIT)
+                .stream()
+                .map(dropChance -> new KeyReport(dropChance.keyIcon(), dropChance.keyName(), dropChance.itemsFound(), dropChance.chance()))
+                .toList();
     }
 
     @Getter
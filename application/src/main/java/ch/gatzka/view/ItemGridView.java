@@ -1,16 +1,19 @@
 package ch.gatzka.view;
 
+import ch.gatzka.core.repository.RepositoryDataProvider;
 import ch.gatzka.enums.GameMode;
 import ch.gatzka.repository.view.ItemGridViewRepository;
-import ch.gatzka.repository.view.TagViewRepository;
 import ch.gatzka.security.AuthenticatedAccount;
+import ch.gatzka.service.ItemCatalog;
+import ch.gatzka.service.TagFacetIndex;
+import ch.gatzka.service.TagFacetIndex.Tag;
 import ch.gatzka.tables.records.ItemGridViewRecord;
-import ch.gatzka.tables.records.TagViewRecord;
 import com.vaadin.flow.component.Key;
 import com.vaadin.flow.component.UI;
 import com.vaadin.flow.component.Unit;
 import com.vaadin.flow.component.button.Button;
 import com.vaadin.flow.component.button.ButtonVariant;
+import com.vaadin.flow.component.checkbox.Checkbox;
 import com.vaadin.flow.component.combobox.ComboBox;
 import com.vaadin.flow.component.combobox.MultiSelectComboBox;
 import com.vaadin.flow.component.grid.Grid;
@@ -29,14 +32,9 @@
 import com.vaadin.flow.server.auth.AnonymousAllowed;
 import com.vaadin.flow.theme.lumo.LumoIcon;
 import org.jooq.Condition;
-import org.jooq.Result;
-import org.jooq.impl.DSL;
 import org.vaadin.lineawesome.LineAwesomeIconUrl;
 
-import java.util.HashMap;
-import java.util.List;
-import java.util.Map;
-import java.util.Set;
+import java.util.*;
 
 import static ch.gatzka.Tables.ITEM_GRID_VIEW;
 
@@ -46,20 +44,41 @@
 @AnonymousAllowed
 public class ItemGridView extends VerticalLayout {
 
+    private static final int SEARCH_LIMIT = 100;
+
     private final Grid<ItemGridViewRecord> grid = new Grid<>(ItemGridViewRecord.class, false);
 
     private final ItemGridViewRepository itemGridViewRepository;
 
     private final Map<String, Condition> conditions = new HashMap<>();
 
-    private final List<String> tags;
+    private Condition[] appliedConditions = new Condition[0];
+
+    private final RepositoryDataProvider<ItemGridViewRecord> dataProvider;
+
+    private String nameFilter;
+
+    private final TagFacetIndex tagFacetIndex;
+
+    private final ItemCatalog itemCatalog;
+
+    private final MultiSelectComboBox<Tag> tagSelect = new MultiSelectComboBox<>("Tags");
+
+    private Map<Tag, Integer> tagCounts;
+
+    private Boolean bannedOnFleaFilter;
+
+    private boolean matchAllTags;
+
+    private BitSet searchMatches;
 
     private final GameMode gameMode;
 
-    public ItemGridView(ItemGridViewRepository itemGridViewRepository, AuthenticatedAccount authenticatedAccount, TagViewRepository tagViewRepository) {
+    public ItemGridView(ItemGridViewRepository itemGridViewRepository, AuthenticatedAccount authenticatedAccount, TagFacetIndex tagFacetIndex, ItemCatalog itemCatalog) {
         this.itemGridViewRepository = itemGridViewRepository;
-
-        this.tags = tagViewRepository.readAll().map(TagViewRecord::getCleanName);
+        this.dataProvider = new RepositoryDataProvider<>(itemGridViewRepository, () -> appliedConditions, ITEM_GRID_VIEW.NAME.asc(), ITEM_GRID_VIEW.ITEM_ID.asc());
+        this.tagFacetIndex = tagFacetIndex;
+        this.itemCatalog = itemCatalog;
 
         if (authenticatedAccount.get().isPresent()) {
             gameMode = authenticatedAccount.get().get().account().getGameMode();
@@ -90,12 +109,7 @@ private void createHeader() {
         nameField.setWidthFull();
         nameField.addValueChangeListener(event -> {
             String value = event.getValue();
-            if (value == null || value.isEmpty()) {
-                conditions.remove("name");
-                removeCondition("name");
-            } else {
-                addCondition("name", ITEM_GRID_VIEW.NAME.likeIgnoreCase("%" + value + "%"));
-            }
+            nameFilter = value == null || value.isBlank() ? null : value;
         });
 
         ComboBox<Boolean> bannedOnFleaField = new ComboBox<>("Can be sold on Flea Market");
@@ -106,28 +120,24 @@ private void createHeader() {
         bannedOnFleaField.addValueChangeListener(event -> {
             if (event.getValue() == null) {
                 removeCondition("itemBannedOnFlea");
+                bannedOnFleaFilter = null;
             } else {
                 addCondition("itemBannedOnFlea", ITEM_GRID_VIEW.ITEM_BANNED_ON_FLEA.eq(!event.getValue()));
+                bannedOnFleaFilter = !event.getValue();
             }
+            updateTagCounts();
         });
 
-        MultiSelectComboBox<String> tagSelect = new MultiSelectComboBox<>("Tags");
-        tagSelect.setItems(tags);
+        tagSelect.setItems(tagFacetIndex.getTags());
+        tagSelect.setItemLabelGenerator(tag -> tag.name() + " (" + tagCounts.getOrDefault(tag, 0) + ")");
         tagSelect.setPlaceholder("Filter by tags");
         tagSelect.setClearButtonVisible(true);
         tagSelect.setWidthFull();
-        tagSelect.addValueChangeListener(event -> {
-            Set<String> tags = event.getValue();
-            if (tags == null || tags.isEmpty()) {
-                removeCondition("tags");
-            } else {
-                Condition condition = DSL.falseCondition();
-                for (String tag : tags) {
-                    condition = condition.or(ITEM_GRID_VIEW.TAGS.likeIgnoreCase("%" + tag + "%"));
-                }
-                addCondition("tags", condition);
-            }
-        });
+
+        Checkbox matchAllTagsField = new Checkbox("Match all tags");
+
+        tagSelect.addValueChangeListener(_ -> filterTags(matchAllTagsField.getValue()));
+        matchAllTagsField.addValueChangeListener(_ -> filterTags(matchAllTagsField.getValue()));
 
         Button resetButton = new Button("Reset");
         resetButton.setIcon(new Icon(VaadinIcon.TRASH));
@@ -137,6 +147,7 @@ private void createHeader() {
             nameField.clear();
             bannedOnFleaField.clear();
             tagSelect.clear();
+            matchAllTagsField.clear();
 
             refreshGrid();
         });
@@ -154,13 +165,53 @@ private void createHeader() {
         buttons.setPadding(false);
         buttons.getThemeList().add("spacing-xs");
 
-        HorizontalLayout header = new HorizontalLayout(nameField, bannedOnFleaField, tagSelect, buttons);
-        header.setAlignSelf(Alignment.END, nameField, bannedOnFleaField, tagSelect);
+        HorizontalLayout header = new HorizontalLayout(nameField, bannedOnFleaField, tagSelect, matchAllTagsField, buttons);
+        header.setAlignSelf(Alignment.END, nameField, bannedOnFleaField, tagSelect, matchAllTagsField);
         header.setWidthFull();
         header.setPadding(false);
         add(header);
     }
 
+    private void filterTags(boolean matchAll) {
+        Set<Tag> tags = tagSelect.getValue();
+        matchAllTags = matchAll;
+        if (tags.isEmpty()) {
+            removeCondition("tags");
+        } else {
+            addCondition("tags", ItemGridViewRepository.hasTags(tags.stream().map(Tag::id).toList(), matchAll));
+        }
+        updateTagCounts();
+    }
+
+    /**
+     * Counts the items per tag within the current filter, which is the intersection of the flea market, tag and name
+     * filters that are set. The flea market and tag matches are taken from the current snapshots.
+     */
+    private void updateTagCounts() {
+        List<BitSet> filters = new ArrayList<>();
+        if (bannedOnFleaFilter != null) {
+            filters.add(itemCatalog.get().columns().idsByBannedOnFlea(bannedOnFleaFilter));
+        }
+        Set<Tag> tags = tagSelect.getValue();
+        if (!tags.isEmpty()) {
+            filters.add(matchAllTags ? tagFacetIndex.matchAll(tags) : tagFacetIndex.matchAny(tags));
+        }
+        if (searchMatches != null) {
+            filters.add(searchMatches);
+        }
+
+        BitSet filter = null;
+        for (BitSet matches : filters) {
+            if (filter == null) {
+                filter = (BitSet) matches.clone();
+            } else {
+                filter.and(matches);
+            }
+        }
+        tagCounts = tagFacetIndex.count(filter);
+        tagSelect.getListDataView().refreshAll();
+    }
+
     private void createFooter() {
         // Select<String> modeSelect = new Select<>();
         // modeSelect.setItems("PvE", "PvP");
@@ -179,9 +230,17 @@ private void createFooter() {
     }
 
     private void refreshGrid() {
-        Condition[] conditions = this.conditions.values().toArray(Condition[]::new);
-        Result<ItemGridViewRecord> records = itemGridViewRepository.read(conditions);
-        grid.setItems(records);
+        appliedConditions = conditions.values().toArray(Condition[]::new);
+        if (nameFilter == null) {
+            searchMatches = null;
+            grid.setItems(dataProvider);
+            dataProvider.refreshAll();
+        } else {
+            grid.setItems(itemGridViewRepository.search(nameFilter, SEARCH_LIMIT, appliedConditions));
+            searchMatches = new BitSet();
+            itemGridViewRepository.searchIds(nameFilter).forEach(searchMatches::set);
+        }
+        updateTagCounts();
     }
 
     private void createGrid() {
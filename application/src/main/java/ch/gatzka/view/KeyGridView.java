@@ -1,5 +1,6 @@
 package ch.gatzka.view;
 
+import ch.gatzka.core.repository.RepositoryDataProvider;
 import ch.gatzka.enums.GameMode;
 import ch.gatzka.repository.view.KeyGridViewRepository;
 import ch.gatzka.security.AuthenticatedAccount;
@@ -29,7 +30,6 @@
 import com.vaadin.flow.theme.lumo.LumoIcon;
 import org.jooq.Condition;
 import org.jooq.DSLContext;
-import org.jooq.Result;
 import org.jooq.impl.DSL;
 import org.vaadin.lineawesome.LineAwesomeIconUrl;
 
@@ -43,10 +43,18 @@
 @AnonymousAllowed
 public class KeyGridView extends VerticalLayout {
 
+    private static final int SEARCH_LIMIT = 100;
+
     private final Grid<KeyGridViewRecord> grid = new Grid<>(KeyGridViewRecord.class, false);
 
     private final Map<String, Condition> conditions = new HashMap<>();
 
+    private Condition[] appliedConditions = new Condition[0];
+
+    private final RepositoryDataProvider<KeyGridViewRecord> dataProvider;
+
+    private String nameFilter;
+
     private final KeyGridViewRepository keyGridViewRepository;
 
     private final List<String> locations = List.of("Customs", "Factory", "Interchange", "Reserve", "Shoreline", "Streets of Tarkov", "The Lab", "Woods");
@@ -55,6 +63,7 @@ public class KeyGridView extends VerticalLayout {
 
     public KeyGridView(KeyGridViewRepository keyGridViewRepository, AuthenticatedAccount authenticatedAccount) {
         this.keyGridViewRepository = keyGridViewRepository;
+        this.dataProvider = new RepositoryDataProvider<>(keyGridViewRepository, () -> appliedConditions, KEY_GRID_VIEW.NAME.asc(), KEY_GRID_VIEW.ITEM_ID.asc());
 
         if (authenticatedAccount.get().isPresent()) {
             gameMode = authenticatedAccount.get().get().account().getGameMode();
@@ -84,12 +93,7 @@ private void createHeader() {
         nameField.setWidthFull();
         nameField.addValueChangeListener(event -> {
             String value = event.getValue();
-            if (value == null || value.isEmpty()) {
-                conditions.remove("name");
-                removeCondition("name");
-            } else {
-                addCondition("name", KEY_GRID_VIEW.NAME.likeIgnoreCase("%" + value + "%"));
-            }
+            nameFilter = value == null || value.isBlank() ? null : value;
         });
 
         ComboBox<Boolean> bannedOnFleaField = new ComboBox<>("Can be bought on Flea Market");
@@ -156,9 +160,13 @@ private void createHeader() {
     }
 
     private void refreshGrid() {
-        Condition[] conditions = this.conditions.values().toArray(Condition[]::new);
-        Result<KeyGridViewRecord> records = keyGridViewRepository.read(conditions);
-        grid.setItems(records);
+        appliedConditions = conditions.values().toArray(Condition[]::new);
+        if (nameFilter == null) {
+            grid.setItems(dataProvider);
+            dataProvider.refreshAll();
+        } else {
+            grid.setItems(keyGridViewRepository.search(nameFilter, SEARCH_LIMIT, appliedConditions));
+        }
     }
 
     private void createGrid() {
@@ -1,15 +1,14 @@
 package ch.gatzka.view;
 
 import ch.gatzka.enums.GameMode;
-import ch.gatzka.repository.ItemRepository;
 import ch.gatzka.repository.KeyReportRepository;
-import ch.gatzka.repository.KeyRepository;
+import ch.gatzka.repository.KeyReportSummaryRepository;
 import ch.gatzka.repository.LootReportRepository;
-import ch.gatzka.repository.view.ItemPriceViewRepository;
 import ch.gatzka.security.AuthenticatedAccount;
-import ch.gatzka.tables.records.ItemPriceViewRecord;
-import ch.gatzka.tables.records.ItemRecord;
-import ch.gatzka.tables.records.KeyRecord;
+import ch.gatzka.service.CatalogItem;
+import ch.gatzka.service.CatalogKey;
+import ch.gatzka.service.ItemCatalog;
+import ch.gatzka.service.ValuationService;
 import com.vaadin.flow.component.ClickEvent;
 import com.vaadin.flow.component.Unit;
 import com.vaadin.flow.component.button.Button;
@@ -41,7 +40,6 @@
 import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.List;
-import java.util.Map;
 import java.util.Optional;
 
 @PageTitle("Report")
@@ -50,21 +48,21 @@
 @RolesAllowed("USER")
 public class ReportView extends VerticalLayout {
 
-    private final ComboBox<KeyRecord> keyComboBox = new ComboBox<>("Select Key");
+    private final ComboBox<CatalogKey> keyComboBox = new ComboBox<>("Select Key");
 
     private final Grid<ItemReport> grid = new Grid<>(ItemReport.class, false);
 
-    private final KeyRepository keyRepository;
+    private final ItemCatalog.Snapshot catalog;
 
-    private final ItemPriceViewRepository itemPriceViewRepository;
+    private final ValuationService valuationService;
 
     private final KeyReportRepository keyReportRepository;
 
     private final LootReportRepository lootReportRepository;
 
-    private final Map<Integer, ItemRecord> items;
+    private final KeyReportSummaryRepository keyReportSummaryRepository;
 
-    private Optional<KeyRecord> selectedKey = Optional.empty();
+    private Optional<CatalogKey> selectedKey = Optional.empty();
 
     private final List<ItemReport> loot = new ArrayList<>();
 
@@ -72,14 +70,14 @@ public class ReportView extends VerticalLayout {
 
     private final AuthenticatedAccount authenticatedAccount;
 
-    public ReportView(KeyRepository keyRepository, ItemRepository itemRepository, ItemPriceViewRepository itemPriceViewRepository, KeyReportRepository keyReportRepository, LootReportRepository lootReportRepository, AuthenticatedAccount authenticatedAccount) {
-        this.keyRepository = keyRepository;
-        this.itemPriceViewRepository = itemPriceViewRepository;
+    public ReportView(ItemCatalog itemCatalog, ValuationService valuationService, KeyReportRepository keyReportRepository, LootReportRepository lootReportRepository, KeyReportSummaryRepository keyReportSummaryRepository, AuthenticatedAccount authenticatedAccount) {
+        this.catalog = itemCatalog.get();
+        this.valuationService = valuationService;
         this.keyReportRepository = keyReportRepository;
         this.lootReportRepository = lootReportRepository;
+        this.keyReportSummaryRepository = keyReportSummaryRepository;
         this.authenticatedAccount = authenticatedAccount;
 
-        this.items = itemRepository.readAll().intoMap(ItemRecord::getId, item -> item);
         this.gameMode = authenticatedAccount.get().orElseThrow(() -> new RuntimeException("Account not authenticated")).account().getGameMode();
 
         setSizeFull();
@@ -126,13 +124,10 @@ private void createHeader() {
         keyComboBox.setRequiredIndicatorVisible(true);
         keyComboBox.setErrorMessage("Key is required");
         keyComboBox.setWidthFull();
-        keyComboBox.setItems(keyRepository.readAll());
-        keyComboBox.setItemLabelGenerator(key -> {
-            ItemRecord item = items.get(key.getItemId());
-            return item.getName() + " (" + key.getUses() + " uses)";
-        });
+        keyComboBox.setItems(catalog.keys());
+        keyComboBox.setItemLabelGenerator(key -> key.item().getName() + " (" + key.getUses() + " uses)");
         keyComboBox.setRenderer(new ComponentRenderer<>(key -> {
-            ItemRecord item = items.get(key.getItemId());
+            CatalogItem item = key.item();
             FlexLayout wrapper = new FlexLayout();
             wrapper.setAlignItems(FlexComponent.Alignment.CENTER);
 
@@ -228,6 +223,7 @@ private void saveReport(ClickEvent<Button> buttonClickEvent) {
             for (ItemReport itemReport : loot) {
                 lootReportRepository.insertWithSequence(entity -> entity.setKeyReportId(keyReportId).setCount(itemReport.count).setItemId(itemReport.getItem().getId()));
             }
+            keyReportSummaryRepository.summarize(keyReportId);
 
             Notification.show("Report saved successfully");
 
@@ -243,30 +239,10 @@ private void saveReport(ClickEvent<Button> buttonClickEvent) {
         confirmDialog.open();
     }
 
-    private void addLoot(ItemRecord item, Integer count) {
-        ItemPriceViewRecord itemPrices = itemPriceViewRepository.findByItemId(item.getId()).orElseThrow(() -> new IllegalArgumentException("Item prices not found"));
-
-        int itemValue;
-        String itemValueString;
-        if (gameMode == GameMode.PvP) {
-            if (itemPrices.getPvpFleaValue() > itemPrices.getPvpTraderValue()) {
-                itemValueString = "₽ " + itemPrices.getPvpFleaValue() * count;
-                itemValue = itemPrices.getPvpFleaValue() * count;
-            } else {
-                itemValueString = itemPrices.getPvpTraderValueCurrency() + " " + itemPrices.getPvpTraderValue() * count;
-                itemValue = itemPrices.getPvpTraderValue() * count;
-            }
-        } else {
-            if (itemPrices.getPveFleaValue() > itemPrices.getPveTraderValue()) {
-                itemValueString = "₽ " + itemPrices.getPveFleaValue() * count;
-                itemValue = itemPrices.getPveFleaValue() * count;
-            } else {
-                itemValueString = itemPrices.getPveTraderValueCurrency() + " " + itemPrices.getPveTraderValue() * count;
-                itemValue = itemPrices.getPveTraderValue() * count;
-            }
-        }
+    private void addLoot(CatalogItem item, Integer count) {
+        ValuationService.Valuation valuation = valuationService.valueOf(gameMode, item.getId(), count);
 
-        this.loot.add(new ItemReport(item, count, itemValue, itemValueString));
+        this.loot.add(new ItemReport(item, count, valuation.value(), valuation.getDisplayValue()));
         refreshGrid();
     }
 
@@ -276,14 +252,14 @@ private void createReport(ClickEvent<Button> buttonClickEvent) {
 
     @Getter
     public static class ItemReport {
-        private final ItemRecord item;
+        private final CatalogItem item;
         private final String imageLink;
         private final String name;
         private final int count;
         private final int itemValue;
         private final String itemValueString;
 
-        public ItemReport(ItemRecord item, int count, int itemValue, String itemValueString) {
+        public ItemReport(CatalogItem item, int count, int itemValue, String itemValueString) {
             this.item = item;
             this.imageLink = item.getImageLink();
             this.name = item.getName();
@@ -301,11 +277,11 @@ private Dialog createDialog() {
         dialog.setWidth(30, Unit.PERCENTAGE);
         dialog.setMaxWidth(40, Unit.PERCENTAGE);
 
-        ComboBox<ItemRecord> selectItemBox = new ComboBox<>();
+        ComboBox<CatalogItem> selectItemBox = new ComboBox<>();
         selectItemBox.setAutofocus(true);
         selectItemBox.setLabel("Item");
-        selectItemBox.setItems(items.values());
-        selectItemBox.setItemLabelGenerator(ItemRecord::getName);
+        selectItemBox.setItems(catalog.items());
+        selectItemBox.setItemLabelGenerator(CatalogItem::getName);
         selectItemBox.setWidth(100, Unit.PERCENTAGE);
         selectItemBox.setRequired(true);
         selectItemBox.setRequiredIndicatorVisible(true);
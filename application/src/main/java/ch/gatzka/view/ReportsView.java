@@ -1,12 +1,12 @@
 package ch.gatzka.view;
 
+import ch.gatzka.core.repository.RepositoryDataProvider;
 import ch.gatzka.enums.GameMode;
-import ch.gatzka.repository.view.ItemPriceViewRepository;
-import ch.gatzka.repository.view.KeyReportViewRepository;
+import ch.gatzka.repository.KeyReportSummaryRepository;
 import ch.gatzka.repository.view.LootReportViewRepository;
 import ch.gatzka.security.AuthenticatedAccount;
-import ch.gatzka.tables.records.ItemPriceViewRecord;
-import ch.gatzka.tables.records.KeyReportViewRecord;
+import ch.gatzka.service.ValuationService;
+import ch.gatzka.tables.records.KeyReportSummaryRecord;
 import ch.gatzka.tables.records.LootReportViewRecord;
 import ch.qos.logback.core.joran.sanity.Pair;
 import com.vaadin.flow.component.Unit;
@@ -20,10 +20,15 @@
 import com.vaadin.flow.router.PageTitle;
 import com.vaadin.flow.router.Route;
 import com.vaadin.flow.server.auth.AnonymousAllowed;
+import org.jooq.Condition;
 import org.jooq.Result;
 import org.vaadin.lineawesome.LineAwesomeIconUrl;
 
 import java.time.format.DateTimeFormatter;
+import java.util.HashMap;
+import java.util.Map;
+
+import static ch.gatzka.Tables.KEY_REPORT_SUMMARY;
 
 @PageTitle("Reports")
 @Route("reports")
@@ -31,18 +36,18 @@
 @AnonymousAllowed
 public class ReportsView extends VerticalLayout {
 
-    private final Grid<KeyReportViewRecord> grid = new Grid<>(KeyReportViewRecord.class, false);
+    private final Grid<KeyReportSummaryRecord> grid = new Grid<>(KeyReportSummaryRecord.class, false);
 
-    private final KeyReportViewRepository keyReportViewRepository;
+    private final KeyReportSummaryRepository keyReportSummaryRepository;
 
     private final LootReportViewRepository lootReportViewRepository;
 
-    private final ItemPriceViewRepository itemPriceViewRepository;
+    private final ValuationService valuationService;
 
-    public ReportsView(KeyReportViewRepository keyReportViewRepository, LootReportViewRepository lootReportViewRepository, ItemPriceViewRepository itemPriceViewRepository, AuthenticatedAccount authenticatedAccount) {
-        this.keyReportViewRepository = keyReportViewRepository;
+    public ReportsView(KeyReportSummaryRepository keyReportSummaryRepository, LootReportViewRepository lootReportViewRepository, ValuationService valuationService, AuthenticatedAccount authenticatedAccount) {
+        this.keyReportSummaryRepository = keyReportSummaryRepository;
         this.lootReportViewRepository = lootReportViewRepository;
-        this.itemPriceViewRepository = itemPriceViewRepository;
+        this.valuationService = valuationService;
 
         GameMode gameMode;
         if (authenticatedAccount.get().isPresent()) {
@@ -54,7 +59,8 @@ public ReportsView(KeyReportViewRepository keyReportViewRepository, LootReportVi
         setSizeFull();
         createGrid();
 
-        grid.setItems(keyReportViewRepository.readByGameMode(gameMode));
+        Condition[] conditions = {KEY_REPORT_SUMMARY.GAME_MODE.eq(gameMode)};
+        grid.setItems(new RepositoryDataProvider<>(keyReportSummaryRepository, () -> conditions, KEY_REPORT_SUMMARY.REPORTED_AT.desc(), KEY_REPORT_SUMMARY.KEY_REPORT_ID.desc()));
     }
 
     private void createGrid() {
@@ -80,7 +86,7 @@ private void createGrid() {
         add(grid);
     }
 
-    private VerticalLayout createItemDetailRenderer(KeyReportViewRecord keyReport) {
+    private VerticalLayout createItemDetailRenderer(KeyReportSummaryRecord keyReport) {
         Result<LootReportViewRecord> lootReports = lootReportViewRepository.readByKeyReportId(keyReport.getKeyReportId());
 
         Grid<LootReportViewRecord> grid = new Grid<>(LootReportViewRecord.class, false);
@@ -98,38 +104,19 @@ private VerticalLayout createItemDetailRenderer(KeyReportViewRecord keyReport) {
         grid.addColumn("name").setHeader("Name");
         grid.addColumn("count").setHeader("Count");
 
-        grid.addColumn(entry -> getItemValue(keyReport.getGameMode(), entry, entry.getCount()).getFirst()).setHeader("Value");
+        int[] itemIds = lootReports.stream().mapToInt(LootReportViewRecord::getItemId).toArray();
+        int[] counts = lootReports.stream().mapToInt(LootReportViewRecord::getCount).toArray();
+        ValuationService.Valuation[] valuations = valuationService.valueOf(keyReport.getGameMode(), itemIds, counts);
+        Map<Integer, ValuationService.Valuation> valuationsByLootReportId = new HashMap<>();
+        for (int i = 0; i < valuations.length; i++) {
+            valuationsByLootReportId.put(lootReports.get(i).getLootReportId(), valuations[i]);
+        }
+
+        grid.addColumn(entry -> valuationsByLootReportId.get(entry.getLootReportId()).getDisplayValue()).setHeader("Value");
 
         grid.setItems(lootReports);
 
         return new VerticalLayout(grid);
     }
 
-    private kotlin.Pair<String, Integer> getItemValue(GameMode gameMode, LootReportViewRecord report, int count) {
-
-        ItemPriceViewRecord itemPrices = itemPriceViewRepository.findByItemId(report.getItemId()).orElseThrow(() -> new IllegalArgumentException("Item prices not found"));
-
-        int itemValue;
-        String itemValueString;
-        if (gameMode == GameMode.PvP) {
-            if (itemPrices.getPvpFleaValue() > itemPrices.getPvpTraderValue()) {
-                itemValueString = "₽ " + itemPrices.getPvpFleaValue() * count;
-                itemValue = itemPrices.getPvpFleaValue() * count;
-            } else {
-                itemValueString = itemPrices.getPvpTraderValueCurrency() + " " + itemPrices.getPvpTraderValue() * count;
-                itemValue = itemPrices.getPvpTraderValue() * count;
-            }
-        } else {
-            if (itemPrices.getPveFleaValue() > itemPrices.getPveTraderValue()) {
-                itemValueString = "₽ " + itemPrices.getPveFleaValue() * count;
-                itemValue = itemPrices.getPveFleaValue() * count;
-            } else {
-                itemValueString = itemPrices.getPveTraderValueCurrency() + " " + itemPrices.getPveTraderValue() * count;
-                itemValue = itemPrices.getPveTraderValue() * count;
-            }
-        }
-
-        return new kotlin.Pair<>(itemValueString, itemValue);
-    }
-
 }
@@ -0,0 +1,102 @@
+package ch.gatzka.view;
+
+import ch.gatzka.DataInitializer;
+import ch.gatzka.sync.AdaptiveSyncScheduler;
+import com.vaadin.flow.component.UI;
+import com.vaadin.flow.component.button.Button;
+import com.vaadin.flow.component.button.ButtonVariant;
+import com.vaadin.flow.component.grid.Grid;
+import com.vaadin.flow.component.grid.GridVariant;
+import com.vaadin.flow.component.icon.VaadinIcon;
+import com.vaadin.flow.component.notification.Notification;
+import com.vaadin.flow.component.notification.NotificationVariant;
+import com.vaadin.flow.component.orderedlayout.HorizontalLayout;
+import com.vaadin.flow.component.orderedlayout.VerticalLayout;
+import com.vaadin.flow.component.textfield.TextField;
+import com.vaadin.flow.router.Menu;
+import com.vaadin.flow.router.PageTitle;
+import com.vaadin.flow.router.Route;
+import jakarta.annotation.security.RolesAllowed;
+import org.vaadin.lineawesome.LineAwesomeIconUrl;
+
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+
+@PageTitle("Sync")
+@Route("sync")
+@Menu(order = 5, icon = LineAwesomeIconUrl.SYNC_SOLID)
+@RolesAllowed("ADMIN")
+public class SyncView extends VerticalLayout {
+
+    private final DataInitializer dataInitializer;
+
+    private final AdaptiveSyncScheduler adaptiveSyncScheduler;
+
+    private final Grid<AdaptiveSyncScheduler.Decision> decisionGrid = new Grid<>(AdaptiveSyncScheduler.Decision.class, false);
+
+    private final TextField intervalField = new TextField("Current interval");
+
+    private final TextField nextRunField = new TextField("Next run");
+
+    public SyncView(DataInitializer dataInitializer, AdaptiveSyncScheduler adaptiveSyncScheduler) {
+        this.dataInitializer = dataInitializer;
+        this.adaptiveSyncScheduler = adaptiveSyncScheduler;
+
+        setSizeFull();
+
+        createHeader();
+        createDecisionGrid();
+
+        refresh();
+    }
+
+    private void refresh() {
+        intervalField.setValue(adaptiveSyncScheduler.getInterval().toString());
+        nextRunField.setValue(adaptiveSyncScheduler.getNextRun() == null ? "-" : adaptiveSyncScheduler.getNextRun().atZone(ZoneId.systemDefault()).format(DateTimeFormatter.ISO_LOCAL_DATE_TIME));
+        decisionGrid.setItems(adaptiveSyncScheduler.getDecisions());
+    }
+
+    private void createDecisionGrid() {
+        decisionGrid.addThemeVariants(GridVariant.LUMO_ROW_STRIPES);
+        decisionGrid.setSizeFull();
+
+        decisionGrid.addColumn(entry -> entry.decidedAt().atZone(ZoneId.systemDefault()).format(DateTimeFormatter.ISO_LOCAL_DATE_TIME)).setHeader("Decided At");
+        decisionGrid.addColumn(AdaptiveSyncScheduler.Decision::insertedCount).setHeader("Inserted");
+        decisionGrid.addColumn(AdaptiveSyncScheduler.Decision::updatedCount).setHeader("Updated");
+        decisionGrid.addColumn(AdaptiveSyncScheduler.Decision::previousInterval).setHeader("Previous Interval");
+        decisionGrid.addColumn(AdaptiveSyncScheduler.Decision::interval).setHeader("Interval");
+
+        add(decisionGrid);
+    }
+
+    private void createHeader() {
+        Button syncButton = new Button("Sync now", VaadinIcon.REFRESH.create());
+        syncButton.addThemeVariants(ButtonVariant.LUMO_PRIMARY);
+        syncButton.setDisableOnClick(true);
+        syncButton.addClickListener(_ -> {
+            UI ui = UI.getCurrent();
+            Notification.show("Sync started");
+            dataInitializer.syncNow().whenComplete((ran, e) -> ui.access(() -> {
+                syncButton.setEnabled(true);
+                refresh();
+                if (e != null) {
+                    Notification.show("Sync failed: " + e.getMessage()).addThemeVariants(NotificationVariant.LUMO_ERROR);
+                } else if (ran) {
+                    Notification.show("Sync finished").addThemeVariants(NotificationVariant.LUMO_SUCCESS);
+                } else {
+                    Notification.show("Sync is running on another node");
+                }
+            }));
+        });
+
+        intervalField.setReadOnly(true);
+        nextRunField.setReadOnly(true);
+
+        HorizontalLayout header = new HorizontalLayout(intervalField, nextRunField, syncButton);
+        header.setAlignSelf(Alignment.END, syncButton);
+        header.setWidthFull();
+        header.setPadding(false);
+        add(header);
+    }
+
+}
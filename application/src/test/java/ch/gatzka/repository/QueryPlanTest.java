@@ -0,0 +1,312 @@
+package ch.gatzka.repository;
+
+import ch.gatzka.enums.GameMode;
+import ch.gatzka.repository.view.ItemGridViewRepository;
+import ch.gatzka.repository.view.KeyGridViewRepository;
+import ch.gatzka.repository.view.LootReportViewRepository;
+import ch.gatzka.tables.records.ItemGridViewRecord;
+import ch.gatzka.tables.records.KeyGridViewRecord;
+import ch.gatzka.tables.records.KeyReportSummaryRecord;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.flywaydb.core.Flyway;
+import org.jooq.*;
+import org.jooq.impl.DSL;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.stream.IntStream;
+
+import static ch.gatzka.Tables.*;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Runs the repository queries behind the views against a seeded database and fails if their plan falls back to a
+ * sequential scan of an indexed table or exceeds its cost budget. Snapshot loads that read whole tables by design are
+ * not covered.
+ */
+@Testcontainers
+class QueryPlanTest {
+
+    private static final int ITEM_COUNT = 5_000;
+
+    private static final int KEY_COUNT = 500;
+
+    private static final int TAG_COUNT = 100;
+
+    private static final int KEY_REPORT_COUNT = 100_000;
+
+    private static final int LOOT_REPORT_COUNT = 1_000_000;
+
+    private static final int PRICE_HISTORY_STEPS = 60;
+
+    private static final YearMonth PRICE_HISTORY_MONTH = YearMonth.of(2025, 1);
+
+    private static final int PAGE_SIZE = 50;
+
+    private static final int SEARCH_LIMIT = 100;
+
+    private static final int SAMPLE_ID = 42;
+
+    private static final Set<String> INDEXED_TABLES = Set.of("item", "key_report", "loot_report", "key_report_summary", "item_price_history");
+
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+
+    @Container
+    private static final PostgreSQLContainer<?> DATABASE = new PostgreSQLContainer<>("postgres:15");
+
+    private static CloseableDSLContext dslContext;
+
+    private static String searchText;
+
+    @BeforeAll
+    static void setUp() {
+        Flyway.configure().dataSource(DATABASE.getJdbcUrl(), DATABASE.getUsername(), DATABASE.getPassword()).load().migrate();
+        dslContext = DSL.using(DATABASE.getJdbcUrl(), DATABASE.getUsername(), DATABASE.getPassword());
+        seed();
+        searchText = dslContext.select(DSL.splitPart(ITEM.NAME, " ", 1)).from(ITEM).where(ITEM.ID.eq(SAMPLE_ID)).fetchSingle().value1();
+    }
+
+    @AfterAll
+    static void tearDown() {
+        dslContext.close();
+    }
+
+    @Test
+    void lootTotalsUseItemIdIndex() {
+        assertPlans(500, dsl -> new LootReportRepository(dsl).readTotalsByItemId(SAMPLE_ID));
+    }
+
+    @Test
+    void dropChancesUseItemIdAndKeyIdIndexes() {
+        assertPlans(10_000, dsl -> new LootReportRepository(dsl).readDropChancesByItemId(SAMPLE_ID, 10));
+    }
+
+    @Test
+    void lootReportsByKeyReportIdUseKeyReportIdIndex() {
+        assertPlans(500, dsl -> new LootReportRepository(dsl).readByKeyReportId(SAMPLE_ID));
+    }
+
+    @Test
+    void lootReportViewByKeyReportIdUsesKeyReportIdIndex() {
+        assertPlans(500, dsl -> new LootReportViewRepository(dsl).readByKeyReportId(SAMPLE_ID));
+    }
+
+    @Test
+    void summaryPagesUseGameModeReportedAtIndex() {
+        List<SortField<?>> orderBy = List.of(KEY_REPORT_SUMMARY.REPORTED_AT.desc(), KEY_REPORT_SUMMARY.KEY_REPORT_ID.desc());
+        Condition condition = KEY_REPORT_SUMMARY.GAME_MODE.eq(GameMode.PvE);
+
+        assertPlans(5_000, dsl -> {
+            KeyReportSummaryRepository repository = new KeyReportSummaryRepository(dsl);
+            repository.count(condition);
+            KeyReportSummaryRecord last = repository.read(orderBy, 0, PAGE_SIZE, condition).getLast();
+            repository.readAfter(orderBy, new Object[]{last.getReportedAt(), last.getKeyReportId()}, PAGE_SIZE, condition);
+        });
+    }
+
+    @Test
+    void summarizeAggregatesSingleReport() {
+        assertPlans(500, dsl -> new KeyReportSummaryRepository(dsl).summarize(SAMPLE_ID));
+    }
+
+    @Test
+    void itemSearchUsesTrigramIndexes() {
+        assertPlans(1_000, dsl -> {
+            ItemGridViewRepository repository = new ItemGridViewRepository(dsl);
+            repository.search(searchText, SEARCH_LIMIT);
+            repository.searchIds(searchText);
+        });
+    }
+
+    @Test
+    void keySearchUsesTrigramIndexes() {
+        assertPlans(1_000, dsl -> new KeyGridViewRepository(dsl).search(searchText, SEARCH_LIMIT));
+    }
+
+    @Test
+    void itemGridPagesStayWithinBudget() {
+        List<SortField<?>> orderBy = List.of(ITEM_GRID_VIEW.NAME.asc(), ITEM_GRID_VIEW.ITEM_ID.asc());
+        Condition condition = ITEM_GRID_VIEW.ITEM_BANNED_ON_FLEA.isFalse();
+
+        assertPlans(1_000, dsl -> {
+            ItemGridViewRepository repository = new ItemGridViewRepository(dsl);
+            repository.count(condition);
+            ItemGridViewRecord last = repository.read(orderBy, 0, PAGE_SIZE, condition).getLast();
+            repository.readAfter(orderBy, new Object[]{last.getName(), last.getItemId()}, PAGE_SIZE, condition);
+            repository.read(orderBy, 20 * PAGE_SIZE, PAGE_SIZE, condition);
+        });
+    }
+
+    @Test
+    void itemGridTagFilterUsesItemTagIndexes() {
+        List<SortField<?>> orderBy = List.of(ITEM_GRID_VIEW.NAME.asc(), ITEM_GRID_VIEW.ITEM_ID.asc());
+
+        assertPlans(500, dsl -> {
+            ItemGridViewRepository repository = new ItemGridViewRepository(dsl);
+            for (boolean matchAll : new boolean[]{false, true}) {
+                Condition condition = ItemGridViewRepository.hasTags(List.of(3, 20), matchAll);
+                repository.count(condition);
+                repository.read(orderBy, 0, PAGE_SIZE, condition);
+            }
+        });
+    }
+
+    @Test
+    void keyGridPagesStayWithinBudget() {
+        List<SortField<?>> orderBy = List.of(KEY_GRID_VIEW.NAME.asc(), KEY_GRID_VIEW.ITEM_ID.asc());
+
+        assertPlans(500, dsl -> {
+            KeyGridViewRepository repository = new KeyGridViewRepository(dsl);
+            repository.count();
+            KeyGridViewRecord last = repository.read(orderBy, 0, PAGE_SIZE).getLast();
+            repository.readAfter(orderBy, new Object[]{last.getName(), last.getItemId()}, PAGE_SIZE);
+        });
+    }
+
+    @Test
+    void priceSeriesUsesItemModeRecordedAtIndex() {
+        LocalDateTime from = PRICE_HISTORY_MONTH.atDay(10).atStartOfDay();
+        assertPlans(500, dsl -> new ItemPriceHistoryRepository(dsl).readSeries(SAMPLE_ID, GameMode.PvE, from, from.plusDays(10), Duration.ofDays(1)));
+    }
+
+    @Test
+    void recordingPriceChangesLooksUpLatestEntries() {
+        List<Integer> itemIds = IntStream.rangeClosed(1, 100).boxed().toList();
+        assertPlans(1_000, dsl -> new ItemPriceHistoryRepository(dsl).recordChanges(itemIds, PRICE_HISTORY_MONTH.atEndOfMonth().atStartOfDay()));
+    }
+
+    /**
+     * Executes the given repository call, captures every statement it runs and checks the plan of each one.
+     */
+    private static void assertPlans(double costBudget, Consumer<DSLContext> call) {
+        List<String> statements = new ArrayList<>();
+        call.accept(dslContext.configuration().deriveAppending(new ExecuteListener() {
+            @Override
+            public void executeStart(ExecuteContext ctx) {
+                statements.add(ctx.dsl().renderInlined(ctx.query()));
+            }
+        }).dsl());
+
+        assertFalse(statements.isEmpty(), "No statement executed");
+        for (String statement : statements) {
+            JsonNode plan = explain(statement);
+
+            List<String> sequentialScans = new ArrayList<>();
+            collectSequentialScans(plan, sequentialScans);
+            assertTrue(sequentialScans.isEmpty(), () -> "Sequential scan on " + sequentialScans + " in " + statement + "\n" + plan.toPrettyString());
+
+            double cost = plan.get("Total Cost").asDouble();
+            assertTrue(cost <= costBudget, () -> "Cost " + cost + " exceeds budget " + costBudget + " in " + statement + "\n" + plan.toPrettyString());
+        }
+    }
+
+    private static JsonNode explain(String statement) {
+        return dslContext.connectionResult(connection -> {
+            try (Statement explain = connection.createStatement(); ResultSet resultSet = explain.executeQuery("EXPLAIN (FORMAT JSON) " + statement)) {
+                resultSet.next();
+                return OBJECT_MAPPER.readTree(resultSet.getString(1)).get(0).get("Plan");
+            }
+        });
+    }
+
+    private static void collectSequentialScans(JsonNode plan, List<String> sequentialScans) {
+        String relation = plan.path("Relation Name").asText();
+        if ("Seq Scan".equals(plan.path("Node Type").asText()) && isIndexed(relation)) {
+            sequentialScans.add(relation);
+        }
+        plan.path("Plans").forEach(child -> collectSequentialScans(child, sequentialScans));
+    }
+
+    /**
+     * @return whether the relation is one of the indexed tables or a partition of one
+     */
+    private static boolean isIndexed(String relation) {
+        return INDEXED_TABLES.stream().anyMatch(table -> relation.equals(table) || relation.startsWith(table + "_") && relation.substring(table.length() + 1).matches("\\d{4}_\\d{2}"));
+    }
+
+    private static void seed() {
+        dslContext.execute("SELECT setseed(0.42)");
+        dslContext.execute("""
+                INSERT INTO account (email)
+                SELECT 'account-' || i || '@example.com'
+                FROM generate_series(1, 50) i""");
+        dslContext.execute("""
+                INSERT INTO item (tarkov_market_id, name, banned_on_flea, have_market_data, short_name,
+                                  pve_price, pvp_price, pve_base_price, pvp_base_price,
+                                  pve_avg24h_price, pvp_avg24h_price, pve_avg7days_price, pvp_avg7days_price,
+                                  pve_trader_name, pvp_trader_name, pve_trader_price, pvp_trader_price,
+                                  pve_trader_price_currency, pvp_trader_price_currency,
+                                  pve_trader_price_rouble, pvp_trader_price_rouble,
+                                  pve_diff24h, pvp_diff24h, pve_diff7days, pvp_diff7days,
+                                  updated, slots, icon, link, wiki_link, image_link, image_big_link,
+                                  tarkov_id, is_functional, reference)
+                SELECT 'market-' || i, INITCAP(SUBSTR(MD5(i::TEXT), 1, 8)) || ' ' || UPPER(SUBSTR(MD5(i::TEXT), 9, 4)), i % 10 = 0, TRUE, UPPER(SUBSTR(MD5(i::TEXT), 1, 5)),
+                       i, i, i, i,
+                       i, i, i, i,
+                       'Therapist', 'Therapist', i, i,
+                       'RUB', 'RUB',
+                       i, i,
+                       0, 0, 0, 0,
+                       NOW(), 1, 'icon-' || i, 'link-' || i, 'wiki-' || i, 'image-' || i, 'image-big-' || i,
+                       'tarkov-' || i, TRUE, 'reference-' || i
+                FROM generate_series(1, %d) i""".formatted(ITEM_COUNT));
+        dslContext.execute("""
+                INSERT INTO tag (name)
+                SELECT location
+                FROM UNNEST(ARRAY ['Customs', 'Factory', 'Interchange', 'Reserve', 'Shoreline', 'Streets_of_Tarkov', 'The_Lab', 'Woods']) location
+                UNION ALL
+                SELECT 'Tag_' || i
+                FROM generate_series(9, %d) i""".formatted(TAG_COUNT));
+        dslContext.execute("""
+                INSERT INTO item_tag (item_id, tag_id)
+                SELECT i, tag_id
+                FROM generate_series(1, %d) i
+                         CROSS JOIN LATERAL (VALUES (1 + i %% 8), (9 + i %% 40), (49 + i %% 52)) AS item_tag (tag_id)""".formatted(ITEM_COUNT));
+        dslContext.execute("""
+                INSERT INTO key (item_id, uses)
+                SELECT i, 1
+                FROM generate_series(1, %d) i""".formatted(KEY_COUNT));
+        dslContext.execute("""
+                INSERT INTO key_report (key_id, reported_at, account_id, mode)
+                SELECT 1 + FLOOR(RANDOM() * %d)::INTEGER,
+                       TIMESTAMP '2024-01-01' + i * INTERVAL '5 minutes',
+                       1 + FLOOR(RANDOM() * 50)::INTEGER,
+                       (CASE WHEN RANDOM() < 0.5 THEN 'PvE' ELSE 'PvP' END)::GAME_MODE
+                FROM generate_series(1, %d) i""".formatted(KEY_COUNT, KEY_REPORT_COUNT));
+        dslContext.execute("""
+                INSERT INTO loot_report (item_id, count, key_report_id)
+                SELECT 1 + FLOOR(RANDOM() * %d)::INTEGER,
+                       1 + FLOOR(RANDOM() * 5)::INTEGER,
+                       1 + FLOOR(RANDOM() * %d)::INTEGER
+                FROM generate_series(1, %d) i""".formatted(ITEM_COUNT, KEY_REPORT_COUNT, LOOT_REPORT_COUNT));
+        new KeyReportSummaryRepository(dslContext).backfill();
+
+        new ItemPriceHistoryRepository(dslContext).createPartition(PRICE_HISTORY_MONTH);
+        dslContext.execute("""
+                INSERT INTO item_price_history (item_id, mode, recorded_at, price, avg24h_price, avg7days_price, trader_price_rouble)
+                SELECT item_id, mode, TIMESTAMP '%s' + step * INTERVAL '12 hours', 1000 + item_id + step, 1000 + item_id, 1000 + item_id, 500 + item_id
+                FROM generate_series(1, %d) item_id
+                         CROSS JOIN UNNEST(ARRAY ['PvE', 'PvP']::GAME_MODE[]) mode
+                         CROSS JOIN generate_series(0, %d) step""".formatted(PRICE_HISTORY_MONTH.atDay(1).atStartOfDay(), ITEM_COUNT, PRICE_HISTORY_STEPS - 1));
+
+        dslContext.execute("REFRESH MATERIALIZED VIEW item_grid_view");
+        dslContext.execute("REFRESH MATERIALIZED VIEW key_grid_view");
+        dslContext.execute("VACUUM ANALYZE");
+    }
+
+}
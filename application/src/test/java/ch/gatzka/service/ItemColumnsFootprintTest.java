@@ -0,0 +1,92 @@
+package ch.gatzka.service;
+
+import ch.gatzka.tables.records.ItemRecord;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Test;
+import org.openjdk.jol.info.GraphLayout;
+
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Compares the retained heap of the columnar catalog with the record map it replaced, for a catalog of the size of
+ * the upstream item list.
+ */
+@Slf4j
+class ItemColumnsFootprintTest {
+
+    private static final int ITEM_COUNT = 5_000;
+
+    private static final String[] TRADERS = {"Prapor", "Therapist", "Skier", "Peacekeeper", "Mechanic", "Ragman", "Jaeger"};
+
+    private static final String[] CURRENCIES = {"RUB", "USD", "EUR"};
+
+    @Test
+    void columnarCatalogIsSmallerThanRecordMap() {
+        Map<Integer, ItemRecord> recordsById = new HashMap<>();
+        Map<Integer, List<Integer>> tagIdsByItemId = new HashMap<>();
+        for (int id = 1; id <= ITEM_COUNT; id++) {
+            recordsById.put(id, item(id));
+            tagIdsByItemId.put(id, List.of(id % 20, 20 + id % 30, 50 + id % 40));
+        }
+
+        ItemColumns columns = new ItemColumns(recordsById.values(), tagIdsByItemId);
+
+        long recordMapSize = GraphLayout.parseInstance(recordsById, tagIdsByItemId).totalSize();
+        long columnsSize = GraphLayout.parseInstance(columns).totalSize();
+        log.info("{} items: Map<Integer, ItemRecord> {} bytes, ItemColumns {} bytes, {} bytes ({}%) saved", ITEM_COUNT, recordMapSize, columnsSize, recordMapSize - columnsSize, 100 * (recordMapSize - columnsSize) / recordMapSize);
+
+        assertTrue(columnsSize < recordMapSize, () -> "ItemColumns uses " + columnsSize + " bytes, the record map " + recordMapSize);
+    }
+
+    /**
+     * Builds a record like one fetched from the database, with its own string instances for every value.
+     */
+    private static ItemRecord item(int id) {
+        ItemRecord record = new ItemRecord()
+                .setId(id)
+                .setTarkovMarketId("market-" + id)
+                .setName("Item " + id)
+                .setBannedOnFlea(id % 10 == 0)
+                .setHaveMarketData(true)
+                .setShortName("I" + id)
+                .setPvePrice(id * 3)
+                .setPvpPrice(id * 5)
+                .setPveBasePrice(id)
+                .setPvpBasePrice(id)
+                .setPveAvg24hPrice(id * 3)
+                .setPvpAvg24hPrice(id * 5)
+                .setPveAvg7daysPrice(id * 3)
+                .setPvpAvg7daysPrice(id * 5)
+                .setPveTraderName(new String(TRADERS[id % TRADERS.length]))
+                .setPvpTraderName(new String(TRADERS[id % TRADERS.length]))
+                .setPveTraderPrice(id * 2)
+                .setPvpTraderPrice(id * 2)
+                .setPveTraderPriceCurrency(new String(CURRENCIES[id % CURRENCIES.length]))
+                .setPvpTraderPriceCurrency(new String(CURRENCIES[id % CURRENCIES.length]))
+                .setPveTraderPriceRouble(id * 2)
+                .setPvpTraderPriceRouble(id * 2)
+                .setPveDiff24h(id % 7 * 0.5)
+                .setPvpDiff24h(id % 7 * -0.5)
+                .setPveDiff7days(id % 11 * 0.25)
+                .setPvpDiff7days(id % 11 * -0.25)
+                .setUpdated(LocalDateTime.of(2025, 1, 1, 0, 0).plusSeconds(id))
+                .setSlots(1 + id % 4)
+                .setIcon("https://assets.tarkov.dev/" + id + "-icon.webp")
+                .setLink("https://tarkov-market.com/item/" + id)
+                .setWikiLink("https://escapefromtarkov.fandom.com/wiki/Item_" + id)
+                .setImageLink("https://assets.tarkov.dev/" + id + "-image.webp")
+                .setImageBigLink("https://assets.tarkov.dev/" + id + "-512.webp")
+                .setTarkovId("tarkov-" + id)
+                .setIsFunctional(true)
+                .setReference("reference-" + id)
+                .setFingerprint((long) id);
+        record.changed(false);
+        return record;
+    }
+
+}
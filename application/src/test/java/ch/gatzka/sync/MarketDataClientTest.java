@@ -0,0 +1,183 @@
+package ch.gatzka.sync;
+
+import ch.gatzka.sync.MarketDataClient.CachedPayload;
+import com.sun.net.httpserver.Headers;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.boot.web.client.RestTemplateBuilder;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.stream.Stream;
+import java.util.zip.GZIPOutputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Runs the client against a local stand-in for the upstream server.
+ */
+class MarketDataClientTest {
+
+    private static final String SOURCE = "items";
+
+    private static final String ETAG = "\"v1\"";
+
+    private static final String LAST_MODIFIED = "Wed, 01 Jan 2025 00:00:00 GMT";
+
+    private static final byte[] PAYLOAD = "{\"name\":\"Item\",\"price\":1000}".repeat(100).getBytes(StandardCharsets.UTF_8);
+
+    @TempDir
+    Path cacheDirectory;
+
+    private final List<Headers> requests = new CopyOnWriteArrayList<>();
+
+    private volatile boolean gzipSupported = true;
+
+    private volatile int responseLength;
+
+    private HttpServer server;
+
+    private String url;
+
+    private MarketDataClient client;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        InetAddress loopback = InetAddress.getLoopbackAddress();
+        server = HttpServer.create(new InetSocketAddress(loopback, 0), 0);
+        server.createContext("/" + SOURCE, this::handle);
+        server.start();
+
+        url = "http://" + loopback.getHostAddress() + ":" + server.getAddress().getPort() + "/" + SOURCE;
+        client = new MarketDataClient(new RestTemplateBuilder().build(), cacheDirectory.toString());
+    }
+
+    @AfterEach
+    void tearDown() {
+        server.stop(0);
+    }
+
+    @Test
+    void downloadsAndDecodesGzipPayload() throws IOException {
+        CachedPayload payload = client.fetch(SOURCE, url, false);
+
+        assertEquals("gzip", requests.getFirst().getFirst("Accept-Encoding"));
+        assertTrue(payload.modified());
+        assertTrue(payload.gzip());
+        assertEquals(responseLength, payload.bytesTransferred());
+        assertTrue(payload.bytesTransferred() < PAYLOAD.length);
+        assertArrayEquals(PAYLOAD, read(payload));
+    }
+
+    @Test
+    void readsUncompressedPayload() throws IOException {
+        gzipSupported = false;
+
+        CachedPayload payload = client.fetch(SOURCE, url, false);
+
+        assertTrue(payload.modified());
+        assertFalse(payload.gzip());
+        assertEquals(PAYLOAD.length, payload.bytesTransferred());
+        assertArrayEquals(PAYLOAD, read(payload));
+    }
+
+    @Test
+    void servesCachedPayloadOnNotModified() throws IOException {
+        client.fetch(SOURCE, url, false);
+        CachedPayload payload = client.fetch(SOURCE, url, false);
+
+        Headers request = requests.get(1);
+        assertEquals(ETAG, request.getFirst("If-None-Match"));
+        assertEquals(LAST_MODIFIED, request.getFirst("If-Modified-Since"));
+        assertFalse(payload.modified());
+        assertTrue(payload.gzip());
+        assertEquals(0, payload.bytesTransferred());
+        assertArrayEquals(PAYLOAD, read(payload));
+    }
+
+    @Test
+    void forcedFetchSkipsValidators() {
+        client.fetch(SOURCE, url, false);
+        CachedPayload payload = client.fetch(SOURCE, url, true);
+
+        assertNull(requests.get(1).getFirst("If-None-Match"));
+        assertNull(requests.get(1).getFirst("If-Modified-Since"));
+        assertTrue(payload.modified());
+        assertEquals(responseLength, payload.bytesTransferred());
+    }
+
+    @Test
+    void invalidateDropsValidators() {
+        client.fetch(SOURCE, url, false);
+        client.invalidate(SOURCE);
+        CachedPayload payload = client.fetch(SOURCE, url, false);
+
+        assertNull(requests.get(1).getFirst("If-None-Match"));
+        assertTrue(payload.modified());
+    }
+
+    @Test
+    void storesPayloadAndValidatorsWithoutTemporaryFiles() throws IOException {
+        client.fetch(SOURCE, url, false);
+        client.fetch(SOURCE, url, true);
+
+        try (Stream<Path> files = Files.list(cacheDirectory)) {
+            assertEquals(List.of(SOURCE + ".json", SOURCE + ".properties"), files.map(file -> file.getFileName().toString()).sorted().toList());
+        }
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        Headers requestHeaders = exchange.getRequestHeaders();
+        requests.add(requestHeaders);
+
+        if (ETAG.equals(requestHeaders.getFirst("If-None-Match"))) {
+            exchange.sendResponseHeaders(304, -1);
+            exchange.close();
+            return;
+        }
+
+        Headers responseHeaders = exchange.getResponseHeaders();
+        responseHeaders.set("ETag", ETAG);
+        responseHeaders.set("Last-Modified", LAST_MODIFIED);
+
+        byte[] body = PAYLOAD;
+        if (gzipSupported && "gzip".equals(requestHeaders.getFirst("Accept-Encoding"))) {
+            body = gzip(PAYLOAD);
+            responseHeaders.set("Content-Encoding", "gzip");
+        }
+        responseLength = body.length;
+
+        exchange.sendResponseHeaders(200, body.length);
+        try (OutputStream outputStream = exchange.getResponseBody()) {
+            outputStream.write(body);
+        }
+    }
+
+    private static byte[] gzip(byte[] bytes) throws IOException {
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        try (GZIPOutputStream gzipOutputStream = new GZIPOutputStream(outputStream)) {
+            gzipOutputStream.write(bytes);
+        }
+        return outputStream.toByteArray();
+    }
+
+    private static byte[] read(CachedPayload payload) throws IOException {
+        try (InputStream inputStream = payload.openStream()) {
+            return inputStream.readAllBytes();
+        }
+    }
+
+}
@@ -0,0 +1,3 @@
+-- TABLE: ITEM
+ALTER TABLE item
+    ADD COLUMN fingerprint BIGINT NOT NULL DEFAULT 0;
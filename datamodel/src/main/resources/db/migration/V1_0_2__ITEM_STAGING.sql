@@ -0,0 +1,8 @@
+-- TABLE: ITEM_STAGING
+CREATE UNLOGGED TABLE item_staging
+(
+    LIKE item
+);
+
+ALTER TABLE item_staging
+    DROP COLUMN id;
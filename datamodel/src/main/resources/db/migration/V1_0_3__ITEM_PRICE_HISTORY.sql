@@ -0,0 +1,18 @@
+-- TABLE: ITEM_PRICE_HISTORY
+CREATE TABLE item_price_history
+(
+    item_id             INTEGER   NOT NULL,
+    mode                GAME_MODE NOT NULL,
+    recorded_at         TIMESTAMP NOT NULL,
+    price               INTEGER   NOT NULL,
+    avg24h_price        INTEGER   NOT NULL,
+    avg7days_price      INTEGER   NOT NULL,
+    trader_price_rouble INTEGER   NOT NULL,
+    CONSTRAINT fk_item_price_history__item_id FOREIGN KEY (item_id) REFERENCES item (id)
+) PARTITION BY RANGE (recorded_at);
+
+-- Monthly partitions are created by the application before each write.
+
+CREATE INDEX ix_item_price_history__recorded_at ON item_price_history USING BRIN (recorded_at);
+
+CREATE INDEX ix_item_price_history__item_id__mode__recorded_at ON item_price_history (item_id, mode, recorded_at);
@@ -0,0 +1,50 @@
+-- VIEW: ITEM_GRID_VIEW
+DROP VIEW item_grid_view;
+
+CREATE MATERIALIZED VIEW item_grid_view AS
+SELECT item.id                                                    AS item_id,
+       COALESCE(NULLIF(TRIM(item.icon), ''), item.image_big_link) AS image_link,
+       item.name,
+       item_price_view.item_banned_on_flea,
+       item_price_view.pve_trader_value,
+       item_price_view.pve_trader_value_currency,
+       item_price_view.pve_flea_value,
+       item_price_view.pvp_trader_value,
+       item_price_view.pvp_trader_value_currency,
+       item_price_view.pvp_flea_value,
+       item_tag_view.tags,
+       item.wiki_link,
+       item.link                                                  AS market_link
+FROM item
+         JOIN item_tag_view
+              ON item.id = item_tag_view.item_id
+         JOIN item_price_view
+              ON item.id = public.item_price_view.item_id;
+
+CREATE UNIQUE INDEX uk_item_grid_view__item_id ON item_grid_view (item_id);
+
+-- VIEW: KEY_GRID_VIEW
+DROP VIEW key_grid_view;
+
+CREATE MATERIALIZED VIEW key_grid_view AS
+SELECT item.id                                                    AS item_id,
+       COALESCE(NULLIF(TRIM(item.icon), ''), item.image_big_link) AS image_link,
+       item.name,
+       item.banned_on_flea                                        AS item_banned_on_flea,
+       item_price_view.pve_flea_value                             AS pve_flea_price,
+       item_price_view.pvp_flea_value                             AS pvp_flea_price,
+       item_price_view.pve_flea_value / uses                      AS pve_flea_price_per_use,
+       item_price_view.pvp_flea_value / uses                      AS pvp_flea_price_per_use,
+       item.wiki_link,
+       item.link                                                  AS market_link,
+       key.uses,
+       key_location_view.locations
+FROM key
+         JOIN item
+              ON item.id = key.item_id
+         JOIN item_price_view
+              ON item.id = public.item_price_view.item_id
+         JOIN key_location_view
+              ON key.id = key_location_view.key_id;
+
+CREATE UNIQUE INDEX uk_key_grid_view__item_id ON key_grid_view (item_id);
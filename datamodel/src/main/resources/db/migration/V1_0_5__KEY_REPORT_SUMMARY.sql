@@ -0,0 +1,20 @@
+-- TABLE: KEY_REPORT_SUMMARY
+CREATE TABLE key_report_summary
+(
+    key_report_id INTEGER      NOT NULL,
+    key_name      VARCHAR(255) NOT NULL,
+    image_link    TEXT         NOT NULL,
+    reported_at   TIMESTAMP    NOT NULL,
+    reported_by   INTEGER      NOT NULL,
+    item_count    BIGINT       NOT NULL,
+    game_mode     GAME_MODE    NOT NULL,
+    CONSTRAINT pk_key_report_summary__key_report_id PRIMARY KEY (key_report_id),
+    CONSTRAINT fk_key_report_summary__key_report_id FOREIGN KEY (key_report_id) REFERENCES key_report (id) ON DELETE CASCADE
+);
+
+CREATE INDEX ix_key_report_summary__game_mode__reported_at ON key_report_summary (game_mode, reported_at);
+
+-- Backfill of existing reports
+INSERT INTO key_report_summary (key_report_id, key_name, image_link, reported_at, reported_by, item_count, game_mode)
+SELECT key_report_id, key_name, image_link, reported_at, reported_by, item_count, game_mode
+FROM key_report_view;
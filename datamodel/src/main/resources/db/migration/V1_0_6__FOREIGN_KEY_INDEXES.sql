@@ -0,0 +1,17 @@
+-- TABLE: LOOT_REPORT
+CREATE INDEX ix_loot_report__item_id ON loot_report (item_id) INCLUDE (key_report_id, count);
+
+CREATE INDEX ix_loot_report__key_report_id ON loot_report (key_report_id);
+
+-- TABLE: KEY_REPORT
+CREATE INDEX ix_key_report__key_id ON key_report (key_id);
+
+CREATE INDEX ix_key_report__account_id ON key_report (account_id);
+
+CREATE INDEX ix_key_report__mode__reported_at ON key_report (mode, reported_at);
+
+-- TABLE: ITEM_TAG
+CREATE INDEX ix_item_tag__tag_id ON item_tag (tag_id);
+
+-- TABLE: ACCOUNT_ROLE
+CREATE INDEX ix_account_role__role_id ON account_role (role_id);
@@ -0,0 +1,17 @@
+CREATE EXTENSION IF NOT EXISTS pg_trgm;
+
+-- FUNCTION: SEARCH_KEY
+-- Lower case text without punctuation, so "Led-X" and "LEDX" share their trigrams
+CREATE FUNCTION search_key(value TEXT) RETURNS TEXT
+    LANGUAGE sql
+    IMMUTABLE
+    PARALLEL SAFE
+AS
+$$
+SELECT REGEXP_REPLACE(LOWER(value), '[^[:alnum:][:space:]]', '', 'g')
+$$;
+
+-- TABLE: ITEM
+CREATE INDEX ix_item__name__search_key ON item USING GIN (search_key(name) gin_trgm_ops);
+
+CREATE INDEX ix_item__short_name__search_key ON item USING GIN (search_key(short_name) gin_trgm_ops);